@@ -1,5 +1,9 @@
 package com.traker.traker.config;
 
+import com.traker.traker.entity.Role;
+import com.traker.traker.entity.User;
+import com.traker.traker.security.UserEncryptionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -7,6 +11,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,9 +21,17 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Фильтр для проверки JWT-токена в запросах.
+ * <p>
+ * В stateless-режиме ({@code app.security.stateless-jwt=true}) пользователь собирается
+ * из claims токена и закешированного ключа шифрования; база данных используется
+ * только при промахе кеша.
+ * </p>
  */
 @Component
 @RequiredArgsConstructor
@@ -26,15 +39,21 @@ import java.io.IOException;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private static final String ACCESS_TOKEN = "accessToken";
+    private static final String ROLE_PREFIX = "ROLE_";
 
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final UserEncryptionService userEncryptionService;
+
+    @Value("${app.security.stateless-jwt:false}")
+    private boolean statelessJwt;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
         String jwt = null;
+        Claims claims = null;
         String username = null;
 
         // Извлекаем токен из cookie
@@ -50,7 +69,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (jwt != null) {
             try {
-                username = jwtUtil.getUsername(jwt);
+                // Подпись проверяется один раз, claims переиспользуются до конца запроса
+                claims = jwtUtil.parseOnce(jwt);
+                username = claims.getSubject();
             } catch (Exception e) {
                 // Недействительный или истёкший токен
                 log.error("Invalid JWT token: {}", e.getMessage());
@@ -60,10 +81,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = statelessJwt ? resolveFromClaims(claims, username) : null;
+            if (userDetails == null) {
+                userDetails = userDetailsService.loadUserByUsername(username);
+            }
 
             try {
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (jwtUtil.validateToken(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -82,4 +106,29 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Собирает пользователя из claims токена без обращения к базе данных.
+     *
+     * @return пользователь или {@code null}, если токен не содержит идентификатора
+     * либо ключ шифрования пользователя отсутствует в кеше или загружен под другим именем
+     */
+    private UserDetails resolveFromClaims(Claims claims, String username) {
+        Long userId = jwtUtil.getUserId(claims);
+        byte[] dataKey = userEncryptionService.findCachedKey(userId, username).orElse(null);
+        if (dataKey == null) {
+            return null;
+        }
+        List<String> authorities = jwtUtil.getRoles(claims);
+        Set<Role> roles = authorities == null ? Set.of() : authorities.stream()
+                .map(authority -> authority.startsWith(ROLE_PREFIX) ? authority.substring(ROLE_PREFIX.length()) : authority)
+                .map(name -> Role.builder().name(name).build())
+                .collect(Collectors.toSet());
+        return User.builder()
+                .id(userId)
+                .username(username)
+                .roles(roles)
+                .decryptedDataKey(dataKey)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.traker.traker.config;
 
+import com.traker.traker.entity.User;
 import com.traker.traker.exception.InvalidTokenException;
 import io.jsonwebtoken.*;
 import org.slf4j.Logger;
@@ -18,13 +19,19 @@ import java.util.stream.Collectors;
 /**
  * Утилита для работы с JWT-токенами.
  * Использует Base64-декодированный ключ для HS256.
+ * <p>
+ * Ключ подписи и {@link JwtParser} создаются один раз: парсер потокобезопасен,
+ * поэтому проверка подписи не требует повторной сборки на каждый вызов.
+ * </p>
  */
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    private static final String USER_ID_CLAIM = "uid";
 
-    private final byte[] secret;
+    private final SecretKeySpec signingKey;
+    private final JwtParser parser;
 
     @Value("${jwt.access_token_expiration}")
     private long accessTokenExpiration;
@@ -33,7 +40,11 @@ public class JwtUtil {
     private long refreshTokenExpiration;
 
     public JwtUtil(@Value("${jwt.secret}") String base64Secret) {
-        this.secret = Base64.getDecoder().decode(base64Secret);
+        byte[] secret = Base64.getDecoder().decode(base64Secret);
+        this.signingKey = new SecretKeySpec(secret, SignatureAlgorithm.HS256.getJcaName());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public TokenInfo createAccessToken(UserDetails userDetails) {
@@ -41,7 +52,7 @@ public class JwtUtil {
                 .map(Object::toString)
                 .collect(Collectors.toList());
         String jti = UUID.randomUUID().toString();
-        String token = createToken(userDetails.getUsername(), roles, jti, accessTokenExpiration);
+        String token = createToken(userDetails.getUsername(), resolveUserId(userDetails), roles, jti, accessTokenExpiration);
         return new TokenInfo(token, jti, accessTokenExpiration / 1000);
     }
 
@@ -50,13 +61,16 @@ public class JwtUtil {
                 .map(Object::toString)
                 .collect(Collectors.toList());
         String jti = UUID.randomUUID().toString();
-        String token = createToken(userDetails.getUsername(), roles, jti, refreshTokenExpiration);
+        String token = createToken(userDetails.getUsername(), resolveUserId(userDetails), roles, jti, refreshTokenExpiration);
         return new TokenInfo(token, jti, refreshTokenExpiration / 1000);
     }
 
-    private String createToken(String username, List<String> roles, String jti, long validityDuration) {
+    private String createToken(String username, Long userId, List<String> roles, String jti, long validityDuration) {
         Claims claims = Jwts.claims().setSubject(username);
         claims.put("roles", roles);
+        if (userId != null) {
+            claims.put(USER_ID_CLAIM, userId);
+        }
 
         Date now = new Date();
         Date validity = new Date(now.getTime() + validityDuration);
@@ -66,17 +80,13 @@ public class JwtUtil {
                 .setId(jti)
                 .setIssuedAt(now)
                 .setExpiration(validity)
-                .signWith(new SecretKeySpec(secret, SignatureAlgorithm.HS256.getJcaName()), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parseOnce(token);
             boolean isValid = !claims.getExpiration().before(new Date());
             if (!isValid) {
                 logger.warn("Токен истёк: exp = {}, currentTime = {}", claims.getExpiration(), new Date());
@@ -97,32 +107,38 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Проверяет подпись и срок действия токена и возвращает его claims.
+     * Результат предназначен для повторного использования в рамках одного запроса.
+     */
+    public Claims parseOnce(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     public String getUsername(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parseOnce(token).getSubject();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> getRoles(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return getRoles(parseOnce(token));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles(Claims claims) {
         return (List<String>) claims.get("roles", List.class);
     }
 
+    public Long getUserId(String token) {
+        return getUserId(parseOnce(token));
+    }
+
+    public Long getUserId(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return userId == null ? null : userId.longValue();
+    }
+
     public String getJti(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getId();
+        return parseOnce(token).getId();
     }
 
     public long getAccessTokenValidityInSeconds() {
@@ -137,6 +153,22 @@ public class JwtUtil {
         return validateToken(token) && getUsername(token).equals(userDetails.getUsername());
     }
 
+    /**
+     * Проверяет уже разобранные claims без повторной проверки подписи.
+     */
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        Date expiration = claims.getExpiration();
+        if (expiration != null && expiration.before(new Date())) {
+            logger.warn("Токен истёк: exp = {}, currentTime = {}", expiration, new Date());
+            return false;
+        }
+        return userDetails.getUsername().equals(claims.getSubject());
+    }
+
+    private static Long resolveUserId(UserDetails userDetails) {
+        return userDetails instanceof User user ? user.getId() : null;
+    }
+
     public static class TokenInfo {
         private final String token;
         private final String jti;
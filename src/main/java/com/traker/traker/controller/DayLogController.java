@@ -1,13 +1,17 @@
 package com.traker.traker.controller;
 
 import com.traker.traker.controller.api.DayLogControllerApi;
+import com.traker.traker.dto.DayEntriesDto;
+import com.traker.traker.dto.TimeEntryBatchRequestDto;
 import com.traker.traker.dto.TimeEntryDto;
 import com.traker.traker.service.DayLogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,6 +25,22 @@ public class DayLogController implements DayLogControllerApi {
 
     private final DayLogService dayLogService;
 
+    /**
+     * Получает записи времени за диапазон дат, сгруппированные по дням.
+     *
+     * @param from первая дата диапазона (yyyy-MM-dd)
+     * @param to   последняя дата диапазона включительно (yyyy-MM-dd)
+     * @return потоковый JSON-массив дней с записями
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> getTimeEntriesByRange(String from, String to) {
+        log.info("Получение записей времени за диапазон: {} - {}", from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(dayLogService.streamTimeEntries(from, to));
+    }
+
     /**
      * Получает список записей времени для заданной даты.
      *
@@ -48,6 +68,19 @@ public class DayLogController implements DayLogControllerApi {
         return ResponseEntity.ok(dayLogService.updateTimeEntry(date, timeEntryDto));
     }
 
+    /**
+     * Сохраняет записи времени сразу за несколько дней.
+     *
+     * @param request дни с интервалами
+     * @return записи каждого дня после сохранения
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<DayEntriesDto>> saveDays(TimeEntryBatchRequestDto request) {
+        log.info("Пакетное сохранение записей времени, дней: {}", request.getDays() == null ? 0 : request.getDays().size());
+        return ResponseEntity.ok(dayLogService.saveDays(request));
+    }
+
     @Override
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteTimeEntry(String date, int hour, int minute) {
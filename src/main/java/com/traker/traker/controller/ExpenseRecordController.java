@@ -1,20 +1,29 @@
 package com.traker.traker.controller;
 
 import com.traker.traker.controller.api.ExpenseRecordControllerApi;
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
 import com.traker.traker.dto.common.BulkIdRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.expense.ExpenseBatchCreateRequestDto;
 import com.traker.traker.dto.expense.ExpenseBatchUpdateRequestDto;
 import com.traker.traker.dto.expense.ExpenseRecordRequestDto;
 import com.traker.traker.dto.expense.ExpenseRecordResponseDto;
 import com.traker.traker.dto.expense.ExpenseSummaryDto;
 import com.traker.traker.service.ExpenseRecordService;
+import com.traker.traker.service.FinanceExportService.ExportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -54,6 +63,40 @@ public class ExpenseRecordController implements ExpenseRecordControllerApi {
         return ResponseEntity.ok(expenseRecordService.getExpenses(from, to, month, categoryIds));
     }
 
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageDto<ExpenseRecordResponseDto>> getExpensePage(@RequestParam(required = false) String from,
+                                                                                  @RequestParam(required = false) String to,
+                                                                                  @RequestParam(required = false) String month,
+                                                                                  @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                                                  @RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(expenseRecordService.getExpensePage(from, to, month, categoryIds, cursor, size));
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(@RequestParam(required = false) String from,
+                                                                @RequestParam(required = false) String to,
+                                                                @RequestParam(required = false) String month,
+                                                                @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                                @RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = expenseRecordService.exportExpenses(from, to, month, categoryIds, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"expenses." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportResultDto> importExpenses(@RequestPart("file") MultipartFile file,
+                                                          @RequestParam(required = false) String format,
+                                                          @RequestParam(required = false) String defaultCategory) {
+        return ResponseEntity.ok(expenseRecordService.importExpenses(file, format, defaultCategory));
+    }
+
     @Override
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ExpenseSummaryDto> getSummary(@RequestParam(required = false) String from,
@@ -72,8 +115,13 @@ public class ExpenseRecordController implements ExpenseRecordControllerApi {
 
     @Override
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Void> deleteExpenses(@RequestBody @Valid BulkIdRequestDto request) {
-        expenseRecordService.deleteExpenses(request.getIds());
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<BulkOperationResultDto> deleteExpenses(@RequestBody @Valid BulkIdRequestDto request) {
+        return ResponseEntity.ok(expenseRecordService.deleteExpenses(request.getIds()));
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BulkOperationResultDto> updateExpenseCategory(@RequestBody @Valid BulkCategoryRequestDto request) {
+        return ResponseEntity.ok(expenseRecordService.updateExpenseCategory(request));
     }
 }
@@ -1,20 +1,29 @@
 package com.traker.traker.controller;
 
 import com.traker.traker.controller.api.IncomeRecordControllerApi;
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
 import com.traker.traker.dto.common.BulkIdRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.income.IncomeBatchCreateRequestDto;
 import com.traker.traker.dto.income.IncomeBatchUpdateRequestDto;
 import com.traker.traker.dto.income.IncomeRecordRequestDto;
 import com.traker.traker.dto.income.IncomeRecordResponseDto;
 import com.traker.traker.dto.income.IncomeSummaryDto;
+import com.traker.traker.service.FinanceExportService.ExportFormat;
 import com.traker.traker.service.IncomeRecordService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -53,6 +62,40 @@ public class IncomeRecordController implements IncomeRecordControllerApi {
         return ResponseEntity.ok(incomeRecordService.getIncomes(from, to, month, categoryIds));
     }
 
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageDto<IncomeRecordResponseDto>> getIncomePage(@RequestParam(required = false) String from,
+                                                                                @RequestParam(required = false) String to,
+                                                                                @RequestParam(required = false) String month,
+                                                                                @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(incomeRecordService.getIncomePage(from, to, month, categoryIds, cursor, size));
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportIncomes(@RequestParam(required = false) String from,
+                                                               @RequestParam(required = false) String to,
+                                                               @RequestParam(required = false) String month,
+                                                               @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                               @RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = incomeRecordService.exportIncomes(from, to, month, categoryIds, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"incomes." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportResultDto> importIncomes(@RequestPart("file") MultipartFile file,
+                                                         @RequestParam(required = false) String format,
+                                                         @RequestParam(required = false) String defaultCategory) {
+        return ResponseEntity.ok(incomeRecordService.importIncomes(file, format, defaultCategory));
+    }
+
     @Override
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<IncomeSummaryDto> getSummary(@RequestParam(required = false) String from,
@@ -71,8 +114,13 @@ public class IncomeRecordController implements IncomeRecordControllerApi {
 
     @Override
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Void> deleteIncomes(@RequestBody @Valid BulkIdRequestDto request) {
-        incomeRecordService.deleteIncomes(request.getIds());
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<BulkOperationResultDto> deleteIncomes(@RequestBody @Valid BulkIdRequestDto request) {
+        return ResponseEntity.ok(incomeRecordService.deleteIncomes(request.getIds()));
+    }
+
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BulkOperationResultDto> updateIncomeCategory(@RequestBody @Valid BulkCategoryRequestDto request) {
+        return ResponseEntity.ok(incomeRecordService.updateIncomeCategory(request));
     }
 }
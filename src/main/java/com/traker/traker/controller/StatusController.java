@@ -2,8 +2,10 @@ package com.traker.traker.controller;
 
 import com.traker.traker.controller.api.StatusControllerApi;
 import com.traker.traker.dto.StatusDto;
+import com.traker.traker.dto.common.BulkIdRequestDto;
 import com.traker.traker.entity.Status;
 import com.traker.traker.service.StatusService;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -40,6 +42,13 @@ public class StatusController implements StatusControllerApi {
         return ResponseEntity.ok(updatedStatus);
     }
 
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> reorderStatuses(@Valid @RequestBody BulkIdRequestDto request) {
+        statusService.reorderStatuses(request.getIds());
+        return ResponseEntity.noContent().build();
+    }
+
     @Override
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteStatus(@PathVariable Long id) {
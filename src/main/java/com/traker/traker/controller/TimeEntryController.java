@@ -1,13 +1,18 @@
 package com.traker.traker.controller;
 
 import com.traker.traker.controller.api.TimeEntryControllerApi;
+import com.traker.traker.dto.stats.StatusTimeStatsDto;
+import com.traker.traker.dto.stats.StreakStatsDto;
+import com.traker.traker.dto.stats.TimeStatsSummaryDto;
+import com.traker.traker.dto.stats.WeekdayTimeStatsDto;
 import com.traker.traker.service.TimeEntryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 public class TimeEntryController implements TimeEntryControllerApi {
@@ -25,4 +30,44 @@ public class TimeEntryController implements TimeEntryControllerApi {
     public double getDailyStats(@RequestParam("date") String date) {
         return timeEntryService.getTotalHoursWorked(date);
     }
-}
\ No newline at end of file
+
+    /**
+     * Эндпоинт для получения сводки по времени за период.
+     *
+     * @param from первая дата периода в формате yyyy-MM-dd
+     * @param to   последняя дата периода включительно в формате yyyy-MM-dd
+     * @return суммарное и рабочее время за период
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public TimeStatsSummaryDto getSummaryStats(@RequestParam("from") String from, @RequestParam("to") String to) {
+        return timeEntryService.getSummary(from, to);
+    }
+
+    /**
+     * Эндпоинт для получения распределения времени по статусам за период.
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public List<StatusTimeStatsDto> getStatusStats(@RequestParam("from") String from, @RequestParam("to") String to) {
+        return timeEntryService.getStatusBreakdown(from, to);
+    }
+
+    /**
+     * Эндпоинт для получения времени по дням недели за период.
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public List<WeekdayTimeStatsDto> getWeekdayStats(@RequestParam("from") String from, @RequestParam("to") String to) {
+        return timeEntryService.getWeekdayHeatmap(from, to);
+    }
+
+    /**
+     * Эндпоинт для получения серий рабочих дней за период.
+     */
+    @Override
+    @PreAuthorize("isAuthenticated()")
+    public StreakStatsDto getStreakStats(@RequestParam("from") String from, @RequestParam("to") String to) {
+        return timeEntryService.getStreaks(from, to);
+    }
+}
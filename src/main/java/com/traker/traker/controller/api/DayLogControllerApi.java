@@ -1,17 +1,26 @@
 package com.traker.traker.controller.api;
 
+import com.traker.traker.dto.DayEntriesDto;
+import com.traker.traker.dto.TimeEntryBatchRequestDto;
 import com.traker.traker.dto.TimeEntryDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 @RequestMapping("/api/days")
 @Tag(name = "Day Log Controller", description = "Методы для управления записями времени и днями")
 public interface DayLogControllerApi {
 
+    @GetMapping
+    @Operation(summary = "Получение записей времени за диапазон дат", description = "Возвращает потоком JSON-массив дней с записями [{date, entries}] за период from..to включительно (не длиннее года). Дни без записей пропускаются.")
+    @ApiResponse(responseCode = "200", description = "Успешное получение записей за диапазон")
+    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат")
+    ResponseEntity<StreamingResponseBody> getTimeEntriesByRange(@RequestParam String from, @RequestParam String to);
+
     @GetMapping("/{date}")
     @Operation(summary = "Получение списка записей времени для заданной даты", description = "Возвращает список объектов TimeEntryDto для указанной даты.")
     @ApiResponse(responseCode = "200", description = "Успешное получение списка записей времени")
@@ -26,6 +35,12 @@ public interface DayLogControllerApi {
     @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     ResponseEntity<TimeEntryDto> updateTimeEntry(@PathVariable String date, @RequestBody TimeEntryDto timeEntryDto);
 
+    @PutMapping("/batch")
+    @Operation(summary = "Пакетное сохранение записей времени за несколько дней", description = "Создает или обновляет записи сразу для дня или недели. Пересечения проверяются для каждого дня целиком; при replace=true записи дня, не переданные в запросе, удаляются.")
+    @ApiResponse(responseCode = "200", description = "Записи сохранены, возвращены записи каждого дня")
+    @ApiResponse(responseCode = "400", description = "Некорректный запрос или пересечение интервалов")
+    ResponseEntity<List<DayEntriesDto>> saveDays(@RequestBody TimeEntryBatchRequestDto request);
+
     @DeleteMapping("/{date}/{hour}/{minute}")
     @Operation(summary = "Удаление записи времени по дате и времени")
     @ApiResponse(responseCode = "204", description = "Запись удалена")
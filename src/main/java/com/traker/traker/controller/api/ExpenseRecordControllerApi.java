@@ -1,6 +1,10 @@
 package com.traker.traker.controller.api;
 
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
 import com.traker.traker.dto.common.BulkIdRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.expense.ExpenseBatchCreateRequestDto;
 import com.traker.traker.dto.expense.ExpenseBatchUpdateRequestDto;
 import com.traker.traker.dto.expense.ExpenseRecordRequestDto;
@@ -9,6 +13,7 @@ import com.traker.traker.dto.expense.ExpenseSummaryDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -18,6 +23,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -50,6 +58,35 @@ public interface ExpenseRecordControllerApi {
                                                                @RequestParam(required = false) String month,
                                                                @RequestParam(required = false, name = "categories") List<Long> categoryIds);
 
+    @Operation(summary = "Постраничное получение трат по фильтру",
+            description = "Страницы упорядочены по месяцу, дате и id; для следующей страницы передайте nextCursor")
+    @ApiResponse(responseCode = "200", description = "Страница получена")
+    @GetMapping("/page")
+    ResponseEntity<CursorPageDto<ExpenseRecordResponseDto>> getExpensePage(@RequestParam(required = false) String from,
+                                                                           @RequestParam(required = false) String to,
+                                                                           @RequestParam(required = false) String month,
+                                                                           @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer size);
+
+    @Operation(summary = "Потоковая выгрузка трат", description = "Формат ndjson (по умолчанию) или csv")
+    @ApiResponse(responseCode = "200", description = "Выгрузка сформирована")
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> exportExpenses(@RequestParam(required = false) String from,
+                                                         @RequestParam(required = false) String to,
+                                                         @RequestParam(required = false) String month,
+                                                         @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                         @RequestParam(required = false) String format);
+
+    @Operation(summary = "Импорт трат из выписки",
+            description = "Файл CSV (колонки date/period, category, title, description, amount) или OFX; "
+                    + "формат определяется по параметру format или расширению файла")
+    @ApiResponse(responseCode = "200", description = "Выписка обработана, ошибки возвращены построчно")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ResponseEntity<ImportResultDto> importExpenses(@RequestPart("file") MultipartFile file,
+                                                   @RequestParam(required = false) String format,
+                                                   @RequestParam(required = false) String defaultCategory);
+
     @Operation(summary = "Получение агрегированной статистики")
     @ApiResponse(responseCode = "200", description = "Статистика сформирована")
     @GetMapping("/summary")
@@ -64,7 +101,12 @@ public interface ExpenseRecordControllerApi {
     ResponseEntity<Void> deleteExpense(@PathVariable Long id);
 
     @Operation(summary = "Массовое удаление трат")
-    @ApiResponse(responseCode = "204", description = "Траты удалены")
+    @ApiResponse(responseCode = "200", description = "Траты удалены, возвращено число удалённых записей")
     @PostMapping("/bulk-delete")
-    ResponseEntity<Void> deleteExpenses(@RequestBody @Valid BulkIdRequestDto request);
+    ResponseEntity<BulkOperationResultDto> deleteExpenses(@RequestBody @Valid BulkIdRequestDto request);
+
+    @Operation(summary = "Массовая смена категории трат")
+    @ApiResponse(responseCode = "200", description = "Категория обновлена, возвращено число изменённых записей")
+    @PutMapping("/bulk-category")
+    ResponseEntity<BulkOperationResultDto> updateExpenseCategory(@RequestBody @Valid BulkCategoryRequestDto request);
 }
@@ -1,6 +1,10 @@
 package com.traker.traker.controller.api;
 
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
 import com.traker.traker.dto.common.BulkIdRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.income.IncomeBatchCreateRequestDto;
 import com.traker.traker.dto.income.IncomeBatchUpdateRequestDto;
 import com.traker.traker.dto.income.IncomeRecordRequestDto;
@@ -9,6 +13,7 @@ import com.traker.traker.dto.income.IncomeSummaryDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +23,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -50,6 +58,35 @@ public interface IncomeRecordControllerApi {
                                                              @RequestParam(required = false) String month,
                                                              @RequestParam(required = false, name = "categories") List<Long> categoryIds);
 
+    @Operation(summary = "Постраничное получение доходов по фильтру",
+            description = "Страницы упорядочены по месяцу, дате и id; для следующей страницы передайте nextCursor")
+    @ApiResponse(responseCode = "200", description = "Страница получена")
+    @GetMapping("/page")
+    ResponseEntity<CursorPageDto<IncomeRecordResponseDto>> getIncomePage(@RequestParam(required = false) String from,
+                                                                         @RequestParam(required = false) String to,
+                                                                         @RequestParam(required = false) String month,
+                                                                         @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer size);
+
+    @Operation(summary = "Потоковая выгрузка доходов", description = "Формат ndjson (по умолчанию) или csv")
+    @ApiResponse(responseCode = "200", description = "Выгрузка сформирована")
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> exportIncomes(@RequestParam(required = false) String from,
+                                                        @RequestParam(required = false) String to,
+                                                        @RequestParam(required = false) String month,
+                                                        @RequestParam(required = false, name = "categories") List<Long> categoryIds,
+                                                        @RequestParam(required = false) String format);
+
+    @Operation(summary = "Импорт доходов из выписки",
+            description = "Файл CSV (колонки date/period, category, title, description, amount) или OFX; "
+                    + "формат определяется по параметру format или расширению файла")
+    @ApiResponse(responseCode = "200", description = "Выписка обработана, ошибки возвращены построчно")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ResponseEntity<ImportResultDto> importIncomes(@RequestPart("file") MultipartFile file,
+                                                  @RequestParam(required = false) String format,
+                                                  @RequestParam(required = false) String defaultCategory);
+
     @Operation(summary = "Получение агрегированной статистики по доходам")
     @ApiResponse(responseCode = "200", description = "Статистика сформирована")
     @GetMapping("/summary")
@@ -64,7 +101,12 @@ public interface IncomeRecordControllerApi {
     ResponseEntity<Void> deleteIncome(@PathVariable Long id);
 
     @Operation(summary = "Массовое удаление доходов")
-    @ApiResponse(responseCode = "204", description = "Доходы удалены")
+    @ApiResponse(responseCode = "200", description = "Доходы удалены, возвращено число удалённых записей")
     @PostMapping("/bulk-delete")
-    ResponseEntity<Void> deleteIncomes(@RequestBody @Valid BulkIdRequestDto request);
+    ResponseEntity<BulkOperationResultDto> deleteIncomes(@RequestBody @Valid BulkIdRequestDto request);
+
+    @Operation(summary = "Массовая смена категории доходов")
+    @ApiResponse(responseCode = "200", description = "Категория обновлена, возвращено число изменённых записей")
+    @PutMapping("/bulk-category")
+    ResponseEntity<BulkOperationResultDto> updateIncomeCategory(@RequestBody @Valid BulkCategoryRequestDto request);
 }
@@ -2,10 +2,12 @@ package com.traker.traker.controller.api;
 
 
 import com.traker.traker.dto.StatusDto;
+import com.traker.traker.dto.common.BulkIdRequestDto;
 import com.traker.traker.entity.Status;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -34,6 +36,12 @@ public interface StatusControllerApi {
     ResponseEntity<StatusDto> updateStatus(@Parameter(description = "ID статуса") @PathVariable Long id,
                                            @RequestBody StatusDto statusDto);
 
+    @Operation(summary = "Изменить порядок статусов", description = "Сохраняет порядок всех статусов пользователя одним запросом.")
+    @ApiResponse(responseCode = "204", description = "Порядок статусов сохранён")
+    @ApiResponse(responseCode = "400", description = "Список не совпадает со статусами пользователя")
+    @PutMapping("/order")
+    ResponseEntity<Void> reorderStatuses(@Valid @RequestBody BulkIdRequestDto request);
+
     @Operation(summary = "Удалить статус по ID", description = "Удаляет статус по указанному ID.")
     @ApiResponse(responseCode = "204", description = "Статус успешно удален")
     @ApiResponse(responseCode = "404", description = "Статус не найден")
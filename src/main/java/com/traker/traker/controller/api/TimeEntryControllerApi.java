@@ -1,18 +1,52 @@
 package com.traker.traker.controller.api;
 
+import com.traker.traker.dto.stats.StatusTimeStatsDto;
+import com.traker.traker.dto.stats.StreakStatsDto;
+import com.traker.traker.dto.stats.TimeStatsSummaryDto;
+import com.traker.traker.dto.stats.WeekdayTimeStatsDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @Tag(name = "Time Entry Controller", description = "Методы для управления записями времени")
 public interface TimeEntryControllerApi {
 
     @GetMapping("/api/stats/daily")
-    @Operation(summary = "Отправка статуса открытия счёта", description = "Отправляет статус открытия счёта во временный кабинет ДБО ЮЛ (ЦОС).")
-    @ApiResponse(responseCode = "200", description = "Успешная отправка статуса открытия счёта")
+    @Operation(summary = "Отработанные часы за день", description = "Возвращает количество отработанных часов текущего пользователя за указанную дату.")
+    @ApiResponse(responseCode = "200", description = "Количество часов успешно рассчитано")
     @ApiResponse(responseCode = "400", description = "Некорректный запрос")
     @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     double getDailyStats(@RequestParam("date") String date);
-}
\ No newline at end of file
+
+    @GetMapping("/api/stats/summary")
+    @Operation(summary = "Сводка за период", description = "Возвращает суммарное и рабочее время, количество дней с записями и среднее время в рабочий день.")
+    @ApiResponse(responseCode = "200", description = "Сводка успешно рассчитана")
+    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат")
+    @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    TimeStatsSummaryDto getSummaryStats(@RequestParam("from") String from, @RequestParam("to") String to);
+
+    @GetMapping("/api/stats/statuses")
+    @Operation(summary = "Время по статусам", description = "Возвращает распределение времени за период по статусам записей.")
+    @ApiResponse(responseCode = "200", description = "Распределение успешно рассчитано")
+    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат")
+    @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    List<StatusTimeStatsDto> getStatusStats(@RequestParam("from") String from, @RequestParam("to") String to);
+
+    @GetMapping("/api/stats/weekdays")
+    @Operation(summary = "Время по дням недели", description = "Возвращает суммы времени за период по дням недели, начиная с понедельника.")
+    @ApiResponse(responseCode = "200", description = "Тепловая карта успешно рассчитана")
+    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат")
+    @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    List<WeekdayTimeStatsDto> getWeekdayStats(@RequestParam("from") String from, @RequestParam("to") String to);
+
+    @GetMapping("/api/stats/streaks")
+    @Operation(summary = "Серии рабочих дней", description = "Возвращает серии подряд идущих дней с рабочим временем, текущую и самую длинную серию.")
+    @ApiResponse(responseCode = "200", description = "Серии успешно рассчитаны")
+    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат")
+    @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    StreakStatsDto getStreakStats(@RequestParam("from") String from, @RequestParam("to") String to);
+}
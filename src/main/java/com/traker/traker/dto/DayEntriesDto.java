@@ -0,0 +1,16 @@
+package com.traker.traker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayEntriesDto {
+    private String date;
+    private List<TimeEntryDto> entries = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.traker.traker.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TimeEntryBatchRequestDto {
+    private List<DayEntriesDto> days;
+    /**
+     * Если {@code true}, записи переданных дней, отсутствующие в запросе, удаляются.
+     */
+    private boolean replace;
+}
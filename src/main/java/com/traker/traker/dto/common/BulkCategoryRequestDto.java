@@ -0,0 +1,17 @@
+package com.traker.traker.dto.common;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkCategoryRequestDto {
+
+    @NotEmpty(message = "Нужно указать хотя бы один идентификатор")
+    private List<Long> ids;
+
+    @NotNull(message = "Категория обязательна")
+    private Long categoryId;
+}
@@ -0,0 +1,12 @@
+package com.traker.traker.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOperationResultDto {
+    private long affected;
+}
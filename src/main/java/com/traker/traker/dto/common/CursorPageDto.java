@@ -0,0 +1,17 @@
+package com.traker.traker.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasNext;
+}
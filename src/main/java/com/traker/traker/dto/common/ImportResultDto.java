@@ -0,0 +1,27 @@
+package com.traker.traker.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDto {
+    private long processed;
+    private long imported;
+    private long skipped;
+    private long failed;
+    private List<RowErrorDto> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowErrorDto {
+        private long line;
+        private String message;
+    }
+}
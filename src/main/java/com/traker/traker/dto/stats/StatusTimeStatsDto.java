@@ -0,0 +1,17 @@
+package com.traker.traker.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusTimeStatsDto {
+    private Long statusId;
+    private String statusName;
+    private long totalMinutes;
+    private long workedMinutes;
+    private long entryCount;
+    private double percentage;
+}
@@ -0,0 +1,26 @@
+package com.traker.traker.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreakStatsDto {
+    private int currentStreak;
+    private int longestStreak;
+    private List<StreakDto> streaks = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StreakDto {
+        private String from;
+        private String to;
+        private int days;
+    }
+}
@@ -0,0 +1,19 @@
+package com.traker.traker.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeStatsSummaryDto {
+    private String from;
+    private String to;
+    private long totalMinutes;
+    private long workedMinutes;
+    private double workedHours;
+    private int trackedDays;
+    private int workedDays;
+    private double averageWorkedHoursPerDay;
+}
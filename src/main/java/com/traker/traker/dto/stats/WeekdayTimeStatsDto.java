@@ -0,0 +1,16 @@
+package com.traker.traker.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeekdayTimeStatsDto {
+    private String dayOfWeek;
+    private long totalMinutes;
+    private long workedMinutes;
+    private int days;
+    private double averageWorkedHours;
+}
@@ -20,7 +20,8 @@ import java.time.LocalDate;
 public class Budget extends DefaultEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "budget_seq")
+    @SequenceGenerator(name = "budget_seq", sequenceName = "budget_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,18 +33,18 @@ public class Budget extends DefaultEntity {
     private LocalDate period;
 
     @Convert(converter = EncryptedBigDecimalConverter.class)
-    @Column(name = "planned_income", columnDefinition = "TEXT")
+    @Column(name = "planned_income", columnDefinition = "BYTEA")
     private BigDecimal plannedIncome;
 
     @Convert(converter = EncryptedBigDecimalConverter.class)
-    @Column(name = "planned_expense", columnDefinition = "TEXT")
+    @Column(name = "planned_expense", columnDefinition = "BYTEA")
     private BigDecimal plannedExpense;
 
     @Convert(converter = EncryptedBigDecimalConverter.class)
-    @Column(name = "savings_goal", columnDefinition = "TEXT")
+    @Column(name = "savings_goal", columnDefinition = "BYTEA")
     private BigDecimal savingsGoal;
 
     @Convert(converter = EncryptedStringConverter.class)
-    @Column(columnDefinition = "TEXT")
+    @Column(columnDefinition = "BYTEA")
     private String notes;
 }
@@ -12,17 +12,24 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Table(name = "day_log", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DayLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "day_log_seq")
+    @SequenceGenerator(name = "day_log_seq", sequenceName = "day_log_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private LocalDate date;
 
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    private User user;
+
     @OneToMany(mappedBy = "dayLog", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<TimeEntry> timeEntries;
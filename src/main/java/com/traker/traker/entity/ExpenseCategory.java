@@ -15,7 +15,8 @@ import lombok.ToString;
 public class ExpenseCategory extends DefaultEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_category_seq")
+    @SequenceGenerator(name = "expense_category_seq", sequenceName = "expense_category_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,7 +20,8 @@ import java.time.LocalDate;
 public class ExpenseRecord extends DefaultEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_record_seq")
+    @SequenceGenerator(name = "expense_record_seq", sequenceName = "expense_record_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,15 +35,15 @@ public class ExpenseRecord extends DefaultEntity {
     private ExpenseCategory category;
 
     @Convert(converter = EncryptedStringConverter.class)
-    @Column(nullable = false, columnDefinition = "TEXT")
+    @Column(nullable = false, columnDefinition = "BYTEA")
     private String title;
 
     @Convert(converter = EncryptedStringConverter.class)
-    @Column(columnDefinition = "TEXT")
+    @Column(columnDefinition = "BYTEA")
     private String description;
 
     @Convert(converter = EncryptedBigDecimalConverter.class)
-    @Column(name = "amount", nullable = false, columnDefinition = "TEXT")
+    @Column(name = "amount", nullable = false, columnDefinition = "BYTEA")
     private BigDecimal amount;
 
     @Column(name = "period_start", nullable = false)
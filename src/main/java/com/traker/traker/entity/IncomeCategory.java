@@ -15,7 +15,8 @@ import lombok.ToString;
 public class IncomeCategory extends DefaultEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "income_category_seq")
+    @SequenceGenerator(name = "income_category_seq", sequenceName = "income_category_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -13,7 +13,8 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class Status extends DefaultEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "status_seq")
+    @SequenceGenerator(name = "status_seq", sequenceName = "status_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
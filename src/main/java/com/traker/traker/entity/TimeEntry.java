@@ -13,7 +13,8 @@ import lombok.ToString;
 @AllArgsConstructor
 public class TimeEntry {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "time_entry_seq")
+    @SequenceGenerator(name = "time_entry_seq", sequenceName = "time_entry_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -42,7 +43,7 @@ public class TimeEntry {
     private boolean worked;
 
     @Convert(converter = EncryptedStringConverter.class)
-    @Column(columnDefinition = "TEXT")
+    @Column(columnDefinition = "BYTEA")
     private String comment;
 
     @ManyToOne
@@ -2,6 +2,7 @@ package com.traker.traker.mapper;
 
 import com.traker.traker.dto.expense.ExpenseRecordResponseDto;
 import com.traker.traker.entity.ExpenseRecord;
+import com.traker.traker.repository.projection.FinanceRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -22,6 +23,13 @@ public interface ExpenseRecordMapper {
 
     List<ExpenseRecordResponseDto> toDtoList(List<ExpenseRecord> expenseRecords);
 
+    @Mapping(target = "expenseDate", source = "recordDate")
+    @Mapping(target = "period", expression = "java(formatPeriod(row.period()))")
+    @Mapping(target = "monthOnly", expression = "java(row.recordDate() == null)")
+    ExpenseRecordResponseDto toDto(FinanceRow row);
+
+    List<ExpenseRecordResponseDto> toDtoListFromRows(List<FinanceRow> rows);
+
     default String formatPeriod(LocalDate period) {
         return period == null ? null : period.format(PERIOD_FORMATTER);
     }
@@ -2,6 +2,7 @@ package com.traker.traker.mapper;
 
 import com.traker.traker.dto.income.IncomeRecordResponseDto;
 import com.traker.traker.entity.IncomeRecord;
+import com.traker.traker.repository.projection.FinanceRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -22,6 +23,13 @@ public interface IncomeRecordMapper {
 
     List<IncomeRecordResponseDto> toDtoList(List<IncomeRecord> incomeRecords);
 
+    @Mapping(target = "incomeDate", source = "recordDate")
+    @Mapping(target = "period", expression = "java(formatPeriod(row.period()))")
+    @Mapping(target = "monthOnly", expression = "java(row.recordDate() == null)")
+    IncomeRecordResponseDto toDto(FinanceRow row);
+
+    List<IncomeRecordResponseDto> toDtoListFromRows(List<FinanceRow> rows);
+
     default String formatPeriod(LocalDate period) {
         return period == null ? null : period.format(PERIOD_FORMATTER);
     }
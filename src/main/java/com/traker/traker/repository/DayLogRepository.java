@@ -1,13 +1,18 @@
 package com.traker.traker.repository;
 
 import com.traker.traker.entity.DayLog;
+import com.traker.traker.entity.User;
 import com.traker.traker.api.DefaultRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DayLogRepository extends DefaultRepository<DayLog, Long> {
-    Optional<DayLog> findByDate(LocalDate date);
+    Optional<DayLog> findByUserAndDate(User user, LocalDate date);
+
+    List<DayLog> findByUserAndDateIn(User user, Collection<LocalDate> dates);
 }
\ No newline at end of file
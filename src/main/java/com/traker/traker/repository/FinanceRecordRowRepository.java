@@ -0,0 +1,318 @@
+package com.traker.traker.repository;
+
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceCategory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.RecordCursor;
+
+/**
+ * Читает зашифрованные колонки трат и доходов напрямую через JDBC, минуя
+ * JPA-конвертеры, чтобы расшифровка выполнялась пакетно на стороне сервиса.
+ */
+@Repository
+public class FinanceRecordRowRepository {
+
+    /** Шаг последовательностей записей; совпадает с allocationSize сущностей. */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public FinanceRecordRowRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                      @Value("${app.finance.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Отдельный шаблон с fetch size: внутри транзакции драйвер PostgreSQL читает строки курсором порциями
+        JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        streaming.setFetchSize(fetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    public List<EncryptedFinanceRow> findByUserAndFilter(RecordTable table,
+                                                         Long userId,
+                                                         FinanceFilter filter,
+                                                         List<Long> categoryIds,
+                                                         boolean withText) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        StringBuilder sql = selectByFilter(table, filter, categoryIds, withText, params);
+        sql.append(orderBy(table));
+
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /**
+     * Keyset-выборка страницы в порядке (период, дата, id): вместо OFFSET продолжает
+     * с позиции {@code after}, поэтому стоимость запроса не растёт с номером страницы.
+     * Записи без даты идут в конце своего периода, как и в {@code NULLS LAST}.
+     */
+    public Slice<EncryptedFinanceRow> findPageByUserAndFilter(RecordTable table,
+                                                              Long userId,
+                                                              FinanceFilter filter,
+                                                              List<Long> categoryIds,
+                                                              RecordCursor after,
+                                                              int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        StringBuilder sql = selectByFilter(table, filter, categoryIds, true, params);
+        if (after != null) {
+            String date = "r." + table.dateColumn;
+            sql.append(" AND (r.period_start > :afterPeriod OR (r.period_start = :afterPeriod AND ");
+            if (after.recordDate() != null) {
+                sql.append("(").append(date).append(" > :afterDate OR ").append(date).append(" IS NULL OR (")
+                        .append(date).append(" = :afterDate AND r.id > :afterId))");
+                params.addValue("afterDate", after.recordDate());
+            } else {
+                sql.append(date).append(" IS NULL AND r.id > :afterId");
+            }
+            sql.append("))");
+            params.addValue("afterPeriod", after.period());
+            params.addValue("afterId", after.id());
+        }
+        sql.append(orderBy(table)).append(" LIMIT :limit");
+        params.addValue("limit", size + 1);
+
+        List<EncryptedFinanceRow> rows = jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+        boolean hasNext = rows.size() > size;
+        List<EncryptedFinanceRow> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    /**
+     * Передаёт строки по одной в {@code consumer}, не накапливая результат в памяти.
+     * Должен вызываться внутри транзакции, иначе драйвер проигнорирует fetch size.
+     */
+    public void forEachByUserAndFilter(RecordTable table,
+                                       Long userId,
+                                       FinanceFilter filter,
+                                       List<Long> categoryIds,
+                                       Consumer<EncryptedFinanceRow> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        StringBuilder sql = selectByFilter(table, filter, categoryIds, true, params);
+        sql.append(orderBy(table));
+
+        streamingJdbcTemplate.query(sql.toString(), params,
+                (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Все категории пользователя одним запросом.
+     */
+    public List<FinanceCategory> findCategoriesByUser(RecordTable table, Long userId) {
+        return jdbcTemplate.query(
+                "SELECT id, name, description FROM " + table.categoryTable + " WHERE user_id = :userId ORDER BY id",
+                new MapSqlParameterSource("userId", userId),
+                (rs, rowNum) -> new FinanceCategory(rs.getLong("id"), rs.getString("name"), rs.getString("description")));
+    }
+
+    /**
+     * Вставляет уже зашифрованные строки одним JDBC-батчем. Поле {@code id} строк игнорируется:
+     * идентификаторы берутся блоками из последовательности, как у Hibernate (pooled-lo).
+     */
+    public void insertAll(RecordTable table, Long userId, List<EncryptedFinanceRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Iterator<Long> ids = reserveIds(table, rows.size()).iterator();
+        String sql = "INSERT INTO " + table.recordTable
+                + " (id, user_id, category_id, title, description, amount, period_start, " + table.dateColumn + ")"
+                + " VALUES (:id, :userId, :categoryId, :title, :description, :amount, :period, :recordDate)";
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> new MapSqlParameterSource("id", ids.next())
+                        .addValue("userId", userId)
+                        .addValue("categoryId", row.categoryId())
+                        .addValue("title", row.title(), Types.BINARY)
+                        .addValue("description", row.description(), Types.BINARY)
+                        .addValue("amount", row.amount(), Types.BINARY)
+                        .addValue("period", row.period())
+                        .addValue("recordDate", row.recordDate(), Types.DATE))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    /**
+     * Резервирует {@code count} идентификаторов одним запросом. Последовательности записей
+     * растут шагом {@link #ID_BLOCK_SIZE}, и каждое значение — нижняя граница блока: вставка
+     * через DEFAULT сожгла бы целый блок на строку, а здесь на блок приходится до 50 строк.
+     */
+    List<Long> reserveIds(RecordTable table, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> lows = jdbcTemplate.queryForList(
+                "SELECT nextval('" + table.recordTable + "_id_seq') FROM generate_series(1, :blocks)",
+                new MapSqlParameterSource("blocks", blocks), Long.class);
+        List<Long> ids = new ArrayList<>(count);
+        for (Long low : lows) {
+            for (int offset = 0; offset < ID_BLOCK_SIZE && ids.size() < count; offset++) {
+                ids.add(low + offset);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Удаляет записи пользователя одним запросом. Возвращает суммы, категории и периоды
+     * удалённых строк (без названий и описаний), чтобы скорректировать агрегаты.
+     * Чужие и несуществующие id пропускаются.
+     */
+    public List<EncryptedFinanceRow> deleteByUserAndIds(RecordTable table, Long userId, Collection<Long> ids) {
+        String sql = "DELETE FROM " + table.recordTable + " r WHERE r.user_id = ? AND r.id = ANY(?)"
+                + " RETURNING r.id, r.category_id, r.amount, r.period_start, r." + table.dateColumn + " AS record_date";
+        return executeForIds(sql, userId, ids, null);
+    }
+
+    /**
+     * Переносит записи пользователя в другую категорию одним запросом. Записи, уже
+     * находящиеся в этой категории, не затрагиваются. Возвращает изменённые строки
+     * с прежней категорией: самосоединение в {@code FROM} видит строку до обновления.
+     */
+    public List<EncryptedFinanceRow> updateCategoryByUserAndIds(RecordTable table, Long userId, Collection<Long> ids,
+                                                                Long categoryId) {
+        String sql = "UPDATE " + table.recordTable + " r SET category_id = ?"
+                + " FROM " + table.recordTable + " old"
+                + " WHERE old.id = r.id AND r.user_id = ? AND r.id = ANY(?) AND r.category_id <> ?"
+                + " RETURNING r.id, old.category_id, r.amount, r.period_start, r." + table.dateColumn + " AS record_date";
+        return executeForIds(sql, userId, ids, categoryId);
+    }
+
+    private List<EncryptedFinanceRow> executeForIds(String sql, Long userId, Collection<Long> ids, Long categoryId) {
+        return jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            int index = 1;
+            if (categoryId != null) {
+                statement.setLong(index++, categoryId);
+            }
+            statement.setLong(index++, userId);
+            statement.setArray(index++, connection.createArrayOf("bigint", ids.toArray()));
+            if (categoryId != null) {
+                statement.setLong(index, categoryId);
+            }
+            return statement;
+        }, (rs, rowNum) -> new EncryptedFinanceRow(
+                rs.getLong("id"),
+                rs.getLong("category_id"),
+                null,
+                null,
+                null,
+                rs.getBytes("amount"),
+                rs.getObject("period_start", LocalDate.class),
+                rs.getObject("record_date", LocalDate.class)));
+    }
+
+    private StringBuilder selectByFilter(RecordTable table,
+                                         FinanceFilter filter,
+                                         List<Long> categoryIds,
+                                         boolean withText,
+                                         MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT r.id, r.category_id, c.name AS category_name, ")
+                .append(withText ? "r.title, r.description, " : "NULL AS title, NULL AS description, ")
+                .append("r.amount, r.period_start, r.").append(table.dateColumn).append(" AS record_date ")
+                .append("FROM ").append(table.recordTable).append(" r ")
+                .append("JOIN ").append(table.categoryTable).append(" c ON c.id = r.category_id ")
+                .append("WHERE r.user_id = :userId");
+
+        if (filter.fromPeriod() != null) {
+            sql.append(" AND r.period_start >= :fromPeriod");
+            params.addValue("fromPeriod", filter.fromPeriod());
+        }
+        if (filter.toPeriod() != null) {
+            sql.append(" AND r.period_start <= :toPeriod");
+            params.addValue("toPeriod", filter.toPeriod());
+        }
+        // Записи без даты относятся ко всему месяцу. Границы дат попадают в запрос только вместе
+        // с границами периода, поэтому диапазон по индексу задаёт period_start, а условие на дату
+        // проверяется по той же записи индекса (user_id, period_start, дата, id) без чтения таблицы
+        if (filter.fromDate() != null) {
+            sql.append(" AND (r.").append(table.dateColumn).append(" IS NULL OR r.")
+                    .append(table.dateColumn).append(" >= :fromDate)");
+            params.addValue("fromDate", filter.fromDate());
+        }
+        if (filter.toDate() != null) {
+            sql.append(" AND (r.").append(table.dateColumn).append(" IS NULL OR r.")
+                    .append(table.dateColumn).append(" <= :toDate)");
+            params.addValue("toDate", filter.toDate());
+        }
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            // Один параметр-массив вместо IN (...): текст запроса не зависит от числа категорий
+            sql.append(" AND r.category_id = ANY(:categoryIds)");
+            params.addValue("categoryIds", bigintArray(categoryIds), Types.ARRAY);
+        }
+        return sql;
+    }
+
+    /**
+     * Значение параметра {@code bigint[]} для условий вида {@code column = ANY(:param)}.
+     */
+    static SqlTypeValue bigintArray(Collection<Long> ids) {
+        return new AbstractSqlTypeValue() {
+            @Override
+            protected Object createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+                return connection.createArrayOf("bigint", ids.toArray());
+            }
+        };
+    }
+
+    private static String orderBy(RecordTable table) {
+        return " ORDER BY r.period_start ASC, r." + table.dateColumn + " ASC NULLS LAST, r.id ASC";
+    }
+
+    private static final RowMapper<EncryptedFinanceRow> ROW_MAPPER = (rs, rowNum) -> new EncryptedFinanceRow(
+            rs.getLong("id"),
+            rs.getLong("category_id"),
+            rs.getString("category_name"),
+            rs.getBytes("title"),
+            rs.getBytes("description"),
+            rs.getBytes("amount"),
+            rs.getObject("period_start", LocalDate.class),
+            rs.getObject("record_date", LocalDate.class));
+
+    public enum RecordTable {
+        EXPENSE("expense_record", "expense_category", "expense_date"),
+        INCOME("income_record", "income_category", "income_date");
+
+        private final String recordTable;
+        private final String categoryTable;
+        private final String dateColumn;
+
+        RecordTable(String recordTable, String categoryTable, String dateColumn) {
+            this.recordTable = recordTable;
+            this.categoryTable = categoryTable;
+            this.dateColumn = dateColumn;
+        }
+
+        public String getRecordTable() {
+            return recordTable;
+        }
+
+        public String getCategoryTable() {
+            return categoryTable;
+        }
+
+        public String getDateColumn() {
+            return dateColumn;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.traker.traker.repository;
+
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Доступ к таблице {@code finance_rollup}: зашифрованные суммы трат и доходов,
+ * накопленные по пользователю, категории и месяцу.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FinanceRollupRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Берёт транзакционную advisory-блокировку на агрегаты пользователя, чтобы
+     * изменения записей и перестроение агрегатов не выполнялись одновременно.
+     */
+    public void lock(RecordTable table, Long userId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("lockKey", "finance_rollup:" + table.name() + ":" + userId);
+        jdbcTemplate.query(
+                "SELECT pg_advisory_xact_lock(hashtextextended(:lockKey, 0))",
+                params,
+                (ResultSetExtractor<Void>) rs -> null);
+    }
+
+    public boolean isReady(RecordTable table, Long userId) {
+        Boolean ready = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM finance_rollup_state WHERE user_id = :userId AND record_type = :recordType)",
+                typeParams(table, userId),
+                Boolean.class);
+        return Boolean.TRUE.equals(ready);
+    }
+
+    public Optional<RollupEntry> findForUpdate(RecordTable table, Long userId, Long categoryId, LocalDate period) {
+        MapSqlParameterSource params = typeParams(table, userId)
+                .addValue("categoryId", categoryId)
+                .addValue("period", period);
+        List<RollupEntry> entries = jdbcTemplate.query(
+                "SELECT id, total, record_count FROM finance_rollup "
+                        + "WHERE user_id = :userId AND record_type = :recordType "
+                        + "AND category_id = :categoryId AND period_start = :period FOR UPDATE",
+                params,
+                (rs, rowNum) -> new RollupEntry(rs.getLong("id"), rs.getBytes("total"), rs.getInt("record_count")));
+        return entries.stream().findFirst();
+    }
+
+    public void insert(RecordTable table, Long userId, Long categoryId, LocalDate period, byte[] total, int count) {
+        jdbcTemplate.update(INSERT_SQL, insertParams(table, userId, categoryId, period, total, count));
+    }
+
+    public void insertAll(List<SqlParameterSource> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    public MapSqlParameterSource insertParams(RecordTable table, Long userId, Long categoryId, LocalDate period,
+                                              byte[] total, int count) {
+        return typeParams(table, userId)
+                .addValue("categoryId", categoryId)
+                .addValue("period", period)
+                .addValue("total", total)
+                .addValue("count", count);
+    }
+
+    public void update(Long id, byte[] total, int count) {
+        jdbcTemplate.update(
+                "UPDATE finance_rollup SET total = :total, record_count = :count WHERE id = :id",
+                new MapSqlParameterSource()
+                        .addValue("id", id)
+                        .addValue("total", total)
+                        .addValue("count", count));
+    }
+
+    public void delete(Long id) {
+        jdbcTemplate.update("DELETE FROM finance_rollup WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    public void deleteAll(RecordTable table, Long userId) {
+        jdbcTemplate.update(
+                "DELETE FROM finance_rollup WHERE user_id = :userId AND record_type = :recordType",
+                typeParams(table, userId));
+    }
+
+    public void markRebuilt(RecordTable table, Long userId) {
+        jdbcTemplate.update(
+                "INSERT INTO finance_rollup_state (user_id, record_type, rebuilt_at) "
+                        + "VALUES (:userId, :recordType, now()) "
+                        + "ON CONFLICT (user_id, record_type) DO UPDATE SET rebuilt_at = EXCLUDED.rebuilt_at",
+                typeParams(table, userId));
+    }
+
+    /**
+     * Возвращает пользователей, для которых агрегаты данного типа ещё ни разу не строились.
+     */
+    public List<Long> findUserIdsWithoutRollup(RecordTable table) {
+        return jdbcTemplate.queryForList(
+                "SELECT u.id FROM users u WHERE NOT EXISTS ("
+                        + "SELECT 1 FROM finance_rollup_state s WHERE s.user_id = u.id AND s.record_type = :recordType) "
+                        + "ORDER BY u.id",
+                new MapSqlParameterSource("recordType", table.name()),
+                Long.class);
+    }
+
+    /**
+     * Читает агрегаты за диапазон месяцев в виде строк, совместимых с построчной
+     * выборкой: одна строка на категорию и месяц, сумма лежит в поле {@code amount}.
+     */
+    public List<EncryptedFinanceRow> findByUserAndPeriods(RecordTable table,
+                                                          Long userId,
+                                                          LocalDate fromPeriod,
+                                                          LocalDate toPeriod,
+                                                          List<Long> categoryIds) {
+        MapSqlParameterSource params = typeParams(table, userId);
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT r.category_id, c.name AS category_name, r.total, r.period_start ")
+                .append("FROM finance_rollup r ")
+                .append("JOIN ").append(table.getCategoryTable()).append(" c ON c.id = r.category_id ")
+                .append("WHERE r.user_id = :userId AND r.record_type = :recordType");
+
+        if (fromPeriod != null) {
+            sql.append(" AND r.period_start >= :fromPeriod");
+            params.addValue("fromPeriod", fromPeriod);
+        }
+        if (toPeriod != null) {
+            sql.append(" AND r.period_start <= :toPeriod");
+            params.addValue("toPeriod", toPeriod);
+        }
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            sql.append(" AND r.category_id = ANY(:categoryIds)");
+            params.addValue("categoryIds", FinanceRecordRowRepository.bigintArray(categoryIds), Types.ARRAY);
+        }
+        sql.append(" ORDER BY r.period_start ASC, r.category_id ASC");
+
+        return jdbcTemplate.query(sql.toString(), params, ROLLUP_ROW_MAPPER);
+    }
+
+    private static MapSqlParameterSource typeParams(RecordTable table, Long userId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("recordType", table.name());
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO finance_rollup "
+            + "(user_id, record_type, category_id, period_start, total, record_count) "
+            + "VALUES (:userId, :recordType, :categoryId, :period, :total, :count)";
+
+    private static final RowMapper<EncryptedFinanceRow> ROLLUP_ROW_MAPPER = (rs, rowNum) -> new EncryptedFinanceRow(
+            null,
+            rs.getLong("category_id"),
+            rs.getString("category_name"),
+            null,
+            null,
+            rs.getBytes("total"),
+            rs.getObject("period_start", LocalDate.class),
+            null);
+
+    public record RollupEntry(Long id, byte[] total, int count) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.traker.traker.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетное изменение порядка статусов пользователя одним UPDATE по списку значений.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatusOrderRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Проставляет статусам пользователя порядковые номера по позиции id в списке.
+     *
+     * @return число обновлённых статусов; статусы других пользователей не затрагиваются
+     */
+    public int updateOrder(Long userId, List<Long> orderedIds) {
+        List<Object[]> orders = new ArrayList<>(orderedIds.size());
+        for (int i = 0; i < orderedIds.size(); i++) {
+            orders.add(new Object[]{orderedIds.get(i), i});
+        }
+        return jdbcTemplate.update(
+                "UPDATE status s SET order_index = v.order_index "
+                        + "FROM (VALUES :orders) AS v(id, order_index) "
+                        + "WHERE s.id = v.id AND s.user_id = :userId",
+                new MapSqlParameterSource()
+                        .addValue("orders", orders)
+                        .addValue("userId", userId));
+    }
+}
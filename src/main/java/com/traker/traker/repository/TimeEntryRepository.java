@@ -4,37 +4,58 @@ import com.traker.traker.api.DefaultRepository;
 import com.traker.traker.entity.DayLog;
 import com.traker.traker.entity.TimeEntry;
 import com.traker.traker.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TimeEntryRepository extends DefaultRepository<TimeEntry, Long> {
-    List<TimeEntry> findByDayLog(DayLog dayLog);
+    boolean existsByDayLog(DayLog dayLog);
 
+    /**
+     * Запросы записей подгружают день и статус тем же SQL-запросом, иначе каждое
+     * EAGER-отношение догружается отдельным запросом на каждый день и статус.
+     */
+    @EntityGraph(attributePaths = {"dayLog", "status"})
     List<TimeEntry> findByDayLogAndUserOrderByHourAscMinuteAsc(DayLog dayLog, User user);
 
-    List<TimeEntry> findByDayLogAndUser(DayLog dayLog, User user);
-
+    @EntityGraph(attributePaths = {"dayLog", "status"})
     Optional<TimeEntry> findByDayLogAndHourAndMinuteAndUser(DayLog dayLog, int hour, int minute, User user);
 
+    @EntityGraph(attributePaths = {"dayLog", "status"})
     Optional<TimeEntry> findByIdAndUser(Long id, User user);
 
+    @EntityGraph(attributePaths = {"dayLog", "status"})
+    List<TimeEntry> findByUserAndDayLogIn(User user, Collection<DayLog> dayLogs);
+
+    @EntityGraph(attributePaths = {"dayLog", "status"})
+    List<TimeEntry> findByUserAndIdIn(User user, Collection<Long> ids);
+
+    /**
+     * Записи пользователя за диапазон дат одним запросом с днём и статусом.
+     * Результат читается курсором, поэтому метод вызывается внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
     @Query("""
         SELECT te FROM TimeEntry te
-        WHERE te.dayLog = :dayLog
-          AND te.user = :user
-          AND ((te.hour * 60 + te.minute) < :endMinutes)
-          AND (:startMinutes < (te.endHour * 60 + te.endMinute))
-          AND (:excludeId IS NULL OR te.id <> :excludeId)
+        JOIN FETCH te.dayLog dl
+        LEFT JOIN FETCH te.status
+        WHERE te.user = :user
+          AND dl.date BETWEEN :from AND :to
+        ORDER BY dl.date ASC, te.hour ASC, te.minute ASC, te.id ASC
     """)
-    List<TimeEntry> findOverlappingEntries(
-            @Param("dayLog") DayLog dayLog,
+    Stream<TimeEntry> streamByUserAndDateRange(
             @Param("user") User user,
-            @Param("startMinutes") int startMinutes,
-            @Param("endMinutes") int endMinutes,
-            @Param("excludeId") Long excludeId);
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
 }
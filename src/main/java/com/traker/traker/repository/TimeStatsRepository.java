@@ -0,0 +1,148 @@
+package com.traker.traker.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Доступ к таблице {@code time_daily_rollup}: минуты записей времени, накопленные
+ * по пользователю, дню, статусу и признаку рабочего времени. Все выборки статистики
+ * агрегируют эту таблицу и не обращаются к {@code time_entry}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TimeStatsRepository {
+
+    private static final String DURATION = "(te.end_minutes - te.start_minutes)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Берёт транзакционную advisory-блокировку на агрегаты пользователя, чтобы
+     * параллельные пересчёты одного дня не пересекались.
+     */
+    public void lock(Long userId) {
+        jdbcTemplate.query(
+                "SELECT pg_advisory_xact_lock(hashtextextended(:lockKey, 0))",
+                new MapSqlParameterSource("lockKey", "time_daily_rollup:" + userId),
+                (ResultSetExtractor<Void>) rs -> null);
+    }
+
+    /**
+     * Пересчитывает агрегаты указанных дней по текущему содержимому {@code time_entry}.
+     */
+    public void refreshDays(Long userId, Collection<LocalDate> days) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("days", days);
+        jdbcTemplate.update("DELETE FROM time_daily_rollup WHERE user_id = :userId AND day IN (:days)", params);
+        jdbcTemplate.update("INSERT INTO time_daily_rollup (user_id, day, status_id, worked, minutes, entry_count) "
+                + "SELECT te.user_id, dl.date, te.status_id, COALESCE(te.worked, FALSE), SUM(" + DURATION + "), COUNT(*) "
+                + "FROM time_entry te JOIN day_log dl ON dl.id = te.day_log_id "
+                + "WHERE dl.user_id = :userId AND dl.date IN (:days) "
+                + "GROUP BY te.user_id, dl.date, te.status_id, COALESCE(te.worked, FALSE)", params);
+    }
+
+    public Totals findTotals(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(minutes), 0) AS total_minutes, "
+                        + "COALESCE(SUM(minutes) FILTER (WHERE worked), 0) AS worked_minutes, "
+                        + "COUNT(DISTINCT day) AS tracked_days, "
+                        + "COUNT(DISTINCT day) FILTER (WHERE worked) AS worked_days "
+                        + "FROM time_daily_rollup WHERE user_id = :userId AND day BETWEEN :from AND :to",
+                rangeParams(userId, from, to),
+                (rs, rowNum) -> new Totals(
+                        rs.getLong("total_minutes"),
+                        rs.getLong("worked_minutes"),
+                        rs.getInt("tracked_days"),
+                        rs.getInt("worked_days")));
+    }
+
+    public List<StatusTotal> findTotalsByStatus(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT r.status_id, s.name AS status_name, SUM(r.minutes) AS total_minutes, "
+                        + "COALESCE(SUM(r.minutes) FILTER (WHERE r.worked), 0) AS worked_minutes, "
+                        + "SUM(r.entry_count) AS entry_count "
+                        + "FROM time_daily_rollup r LEFT JOIN status s ON s.id = r.status_id "
+                        + "WHERE r.user_id = :userId AND r.day BETWEEN :from AND :to "
+                        + "GROUP BY r.status_id, s.name "
+                        + "ORDER BY total_minutes DESC, status_name ASC",
+                rangeParams(userId, from, to),
+                (rs, rowNum) -> new StatusTotal(
+                        rs.getObject("status_id", Long.class),
+                        rs.getString("status_name"),
+                        rs.getLong("total_minutes"),
+                        rs.getLong("worked_minutes"),
+                        rs.getLong("entry_count")));
+    }
+
+    /**
+     * Суммы по дням недели (1 — понедельник, 7 — воскресенье); дни недели без записей не возвращаются.
+     */
+    public List<WeekdayTotal> findTotalsByWeekday(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT EXTRACT(ISODOW FROM day)::INT AS day_of_week, SUM(minutes) AS total_minutes, "
+                        + "COALESCE(SUM(minutes) FILTER (WHERE worked), 0) AS worked_minutes, "
+                        + "COUNT(DISTINCT day) AS days "
+                        + "FROM time_daily_rollup WHERE user_id = :userId AND day BETWEEN :from AND :to "
+                        + "GROUP BY day_of_week ORDER BY day_of_week",
+                rangeParams(userId, from, to),
+                (rs, rowNum) -> new WeekdayTotal(
+                        rs.getInt("day_of_week"),
+                        rs.getLong("total_minutes"),
+                        rs.getLong("worked_minutes"),
+                        rs.getInt("days")));
+    }
+
+    /**
+     * Непрерывные серии дней с рабочим временем: дни одной серии дают одинаковую
+     * разность между датой и порядковым номером.
+     */
+    public List<Streak> findWorkedStreaks(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT MIN(day) AS start_day, MAX(day) AS end_day, COUNT(*) AS days FROM ("
+                        + "SELECT day, day - (ROW_NUMBER() OVER (ORDER BY day))::INT AS grp FROM ("
+                        + "SELECT DISTINCT day FROM time_daily_rollup "
+                        + "WHERE user_id = :userId AND worked AND minutes > 0 AND day BETWEEN :from AND :to"
+                        + ") worked_days"
+                        + ") grouped GROUP BY grp ORDER BY start_day",
+                rangeParams(userId, from, to),
+                (rs, rowNum) -> new Streak(
+                        rs.getObject("start_day", LocalDate.class),
+                        rs.getObject("end_day", LocalDate.class),
+                        rs.getInt("days")));
+    }
+
+    public long findWorkedMinutes(Long userId, LocalDate day) {
+        Long minutes = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(minutes), 0) FROM time_daily_rollup WHERE user_id = :userId AND day = :day AND worked",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("day", day),
+                Long.class);
+        return minutes == null ? 0 : minutes;
+    }
+
+    private MapSqlParameterSource rangeParams(Long userId, LocalDate from, LocalDate to) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("from", from)
+                .addValue("to", to);
+    }
+
+    public record Totals(long totalMinutes, long workedMinutes, int trackedDays, int workedDays) {
+    }
+
+    public record StatusTotal(Long statusId, String statusName, long totalMinutes, long workedMinutes, long entryCount) {
+    }
+
+    public record WeekdayTotal(int dayOfWeek, long totalMinutes, long workedMinutes, int days) {
+    }
+
+    public record Streak(LocalDate from, LocalDate to, int days) {
+    }
+}
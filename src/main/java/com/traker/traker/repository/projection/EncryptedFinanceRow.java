@@ -0,0 +1,19 @@
+package com.traker.traker.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Строка траты или дохода с зашифрованными полями в том виде, в котором она хранится в базе.
+ * {@code title} и {@code description} равны {@code null}, если запрос выбирал только суммы.
+ */
+public record EncryptedFinanceRow(
+        Long id,
+        Long categoryId,
+        String categoryName,
+        byte[] title,
+        byte[] description,
+        byte[] amount,
+        LocalDate period,
+        LocalDate recordDate
+) {
+}
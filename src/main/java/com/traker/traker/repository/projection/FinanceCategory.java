@@ -0,0 +1,11 @@
+package com.traker.traker.repository.projection;
+
+/**
+ * Категория трат или доходов без управляемой JPA-сущности.
+ */
+public record FinanceCategory(
+        Long id,
+        String name,
+        String description
+) {
+}
@@ -0,0 +1,19 @@
+package com.traker.traker.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Расшифрованная строка траты или дохода без управляемой JPA-сущности.
+ */
+public record FinanceRow(
+        Long id,
+        Long categoryId,
+        String categoryName,
+        String title,
+        String description,
+        BigDecimal amount,
+        LocalDate period,
+        LocalDate recordDate
+) {
+}
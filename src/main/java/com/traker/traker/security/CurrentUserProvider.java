@@ -0,0 +1,51 @@
+package com.traker.traker.security;
+
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Resolves the authenticated {@link User} for the current request. The
+ * principal placed into the security context by {@code JwtRequestFilter} is
+ * already a fully loaded user, so it is reused directly; the repository is only
+ * consulted when the principal is not a {@link User} and the result is then
+ * memoized in the request attributes.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserProvider {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserProvider.class.getName() + ".USER";
+
+    private final UserRepository userRepository;
+
+    public User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new IllegalStateException("Пользователь не аутентифицирован");
+        }
+        if (authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return user;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User cached
+                && cached.getUsername().equals(authentication.getName())) {
+            return cached;
+        }
+
+        String username = authentication.getName();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,179 @@
+package com.traker.traker.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded, TTL-evicting LRU cache of decrypted per-user data keys.
+ * Entries are keyed by user id and remember the wrapped key they were
+ * unwrapped from, so a rotated {@code encryptedDataKey} is never served from a
+ * stale entry. Entries also remember the username the key was loaded for, so a
+ * token issued under another username is never resolved from the cache.
+ * Key bytes are zeroed whenever an entry leaves the cache.
+ */
+@Component
+public class DataKeyCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Long, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DataKeyCache(@Value("${app.security.key-cache.max-size:10000}") int maxSize,
+                        @Value("${app.security.key-cache.ttl:PT30M}") Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Key cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = Clock.systemUTC();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a copy of the cached key only if it was unwrapped from the given
+     * {@code encryptedDataKey} version and has not expired.
+     */
+    public Optional<byte[]> get(Long userId, String encryptedDataKey) {
+        return lookup(userId, entry -> Objects.equals(entry.encryptedDataKey, encryptedDataKey), true);
+    }
+
+    /**
+     * Returns a copy of the cached key regardless of its wrapped-key version, but only
+     * if it was loaded for the given username. Used by stateless authentication, where
+     * only the token claims are known; the TTL bounds how long a rotated key can still be served.
+     */
+    public Optional<byte[]> getForUsername(Long userId, String username) {
+        // A different username does not drop the entry: it may be current for a renamed user
+        return lookup(userId, entry -> Objects.equals(entry.username, username), false);
+    }
+
+    public void put(Long userId, String username, String encryptedDataKey, byte[] key) {
+        if (userId == null || key == null) {
+            return;
+        }
+        Entry entry = new Entry(username, encryptedDataKey, Arrays.copyOf(key, key.length), clock.millis() + ttlMillis);
+        synchronized (entries) {
+            Entry previous = entries.put(userId, entry);
+            if (previous != null) {
+                previous.wipe();
+            }
+            evictOverflow();
+        }
+    }
+
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (entries) {
+            Entry removed = entries.remove(userId);
+            if (removed != null) {
+                removed.wipe();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(Entry::wipe);
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    /**
+     * @param matches          whether the entry may be served for this lookup
+     * @param evictOnMismatch  whether a non-matching entry is stale and should be dropped
+     */
+    private Optional<byte[]> lookup(Long userId, Predicate<Entry> matches, boolean evictOnMismatch) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            boolean matching = matches.test(entry);
+            if (!matching && !evictOnMismatch) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            if (!matching || entry.isExpired(clock.millis())) {
+                entries.remove(userId);
+                entry.wipe();
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            return Optional.of(Arrays.copyOf(entry.key, entry.key.length));
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            eldest.wipe();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final class Entry {
+        private final String username;
+        private final String encryptedDataKey;
+        private final byte[] key;
+        private final long expiresAt;
+
+        Entry(String username, String encryptedDataKey, byte[] key, long expiresAt) {
+            this.username = username;
+            this.encryptedDataKey = encryptedDataKey;
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        void wipe() {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+}
@@ -6,26 +6,34 @@ import com.traker.traker.security.crypto.DataEncryptionService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Arrays;
+import java.util.Optional;
 
 /**
  * Manages per-user encryption keys. Each user receives a random 256-bit key
- * that is stored encrypted with a server-side master key.
+ * that is stored encrypted with a server-side master key. Unwrapped keys are
+ * kept in {@link DataKeyCache}, so the master-key decryption only happens on a
+ * cache miss or after the wrapped key changes.
  */
 @Service
 public class UserEncryptionService {
 
     private final UserRepository userRepository;
     private final DataEncryptionService dataEncryptionService;
+    private final DataKeyCache dataKeyCache;
 
     private final byte[] masterKey;
 
     public UserEncryptionService(UserRepository userRepository,
                                  DataEncryptionService dataEncryptionService,
+                                 DataKeyCache dataKeyCache,
                                  @Value("${app.security.master-key}") String masterKeyValue) {
         this.userRepository = userRepository;
         this.dataEncryptionService = dataEncryptionService;
+        this.dataKeyCache = dataKeyCache;
         this.masterKey = dataEncryptionService.decodeKey(masterKeyValue);
     }
 
@@ -40,12 +48,49 @@ public class UserEncryptionService {
         if (user.getEncryptedDataKey() == null) {
             assignFreshKey(user);
             userRepository.save(user);
+            dataKeyCache.put(user.getId(), user.getUsername(), user.getEncryptedDataKey(), user.getDecryptedDataKey());
             return user;
         }
         if (user.getDecryptedDataKey() == null) {
-            byte[] rawKey = dataEncryptionService.decryptToBytes(masterKey, user.getEncryptedDataKey());
-            user.setDecryptedDataKey(Arrays.copyOf(rawKey, rawKey.length));
+            byte[] rawKey = dataKeyCache.get(user.getId(), user.getEncryptedDataKey())
+                    .orElseGet(() -> unwrapAndCache(user));
+            user.setDecryptedDataKey(rawKey);
         }
         return user;
     }
+
+    /**
+     * Returns a copy of the cached decrypted key for the given user, if present and
+     * loaded for the same username as the token subject.
+     */
+    public Optional<byte[]> findCachedKey(Long userId, String username) {
+        return dataKeyCache.getForUsername(userId, username);
+    }
+
+    /**
+     * Drops the cached key so the next request has to reload the user from the database.
+     * Inside a transaction the key is dropped again after commit: a request that reloaded
+     * the old row before the commit must not keep serving it from the cache.
+     */
+    public void evictKey(Long userId) {
+        dataKeyCache.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dataKeyCache.evict(userId);
+                }
+            });
+        }
+    }
+
+    public DataKeyCache.Stats getKeyCacheStats() {
+        return dataKeyCache.stats();
+    }
+
+    private byte[] unwrapAndCache(User user) {
+        byte[] rawKey = dataEncryptionService.decryptToBytes(masterKey, user.getEncryptedDataKey());
+        dataKeyCache.put(user.getId(), user.getUsername(), user.getEncryptedDataKey(), rawKey);
+        return Arrays.copyOf(rawKey, rawKey.length);
+    }
 }
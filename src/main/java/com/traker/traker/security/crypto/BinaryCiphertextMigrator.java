@@ -0,0 +1,174 @@
+package com.traker.traker.security.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites encrypted columns that still hold legacy Base64 text into the binary
+ * format ({@link DataEncryptionService#BINARY_FORMAT_V1} + IV + ciphertext).
+ * The conversion only re-encodes the stored bytes, so no user keys are needed
+ * and it runs entirely in SQL. Rows are processed in primary-key windows, one
+ * short autocommit statement per window, so the application stays online and
+ * reads both formats while the migration is in progress.
+ * <p>
+ * Each table is migrated under a session advisory lock, so only one instance
+ * converts it at a time. A window that fails is retried row by row; rows that
+ * cannot be decoded are reported once and skipped on later passes.
+ */
+@Slf4j
+@Component
+public class BinaryCiphertextMigrator {
+
+    private static final Map<String, List<String>> ENCRYPTED_COLUMNS = Map.of(
+            "expense_record", List.of("title", "description", "amount"),
+            "income_record", List.of("title", "description", "amount"),
+            "budget", List.of("planned_income", "planned_expense", "savings_goal", "notes"),
+            "time_entry", List.of("comment"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Map<String, Set<Long>> failedIds = new ConcurrentHashMap<>();
+
+    private volatile boolean completed;
+
+    public BinaryCiphertextMigrator(JdbcTemplate jdbcTemplate,
+                                    @Value("${app.security.binary-migration.enabled:true}") boolean enabled,
+                                    @Value("${app.security.binary-migration.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.security.binary-migration.initial-delay:PT1M}",
+            fixedDelayString = "${app.security.binary-migration.delay:PT10M}")
+    public void migrate() {
+        if (!enabled || completed) {
+            return;
+        }
+        boolean done = true;
+        for (Map.Entry<String, List<String>> table : ENCRYPTED_COLUMNS.entrySet()) {
+            done &= migrateTableLocked(table.getKey(), table.getValue());
+        }
+        completed = done;
+        if (done) {
+            long skipped = failedIds.values().stream().mapToLong(Set::size).sum();
+            if (skipped == 0) {
+                log.info("Все зашифрованные колонки переведены в бинарный формат");
+            } else {
+                log.warn("Перевод в бинарный формат завершён, пропущено строк с некорректными данными: {}", skipped);
+            }
+        }
+    }
+
+    /**
+     * Мигрирует таблицу, удерживая сессионную advisory-блокировку на отдельном соединении.
+     * Окна обновляются через пул в автокоммите; если таблицу обрабатывает другой
+     * экземпляр, она пропускается до следующего запуска.
+     */
+    private boolean migrateTableLocked(String table, List<String> columns) {
+        String lockKey = "binary-migration:" + table;
+        Boolean done = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(hashtextextended(?, 0))", lockKey)) {
+                log.debug("Таблицу {} переводит в бинарный формат другой экземпляр", table);
+                return false;
+            }
+            try {
+                migrateTable(table, columns);
+                return true;
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(hashtextextended(?, 0))", lockKey);
+            }
+        });
+        return Boolean.TRUE.equals(done);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, String lockKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, lockKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void migrateTable(String table, List<String> columns) {
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table, Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (minId == null || maxId == null) {
+            return;
+        }
+
+        Set<Long> failed = failedIds.computeIfAbsent(table, key -> ConcurrentHashMap.newKeySet());
+        List<Long> newlyFailed = new ArrayList<>();
+        String assignments = buildAssignments(columns);
+        String legacy = buildLegacyCondition(columns);
+        long migrated = 0;
+        for (long from = minId; from <= maxId; from += batchSize) {
+            long to = from + batchSize - 1;
+            String window = " WHERE id BETWEEN ? AND ? AND (" + legacy + ")" + excluding(failed);
+            try {
+                migrated += jdbcTemplate.update("UPDATE " + table + " SET " + assignments + window, from, to);
+            } catch (DataAccessException e) {
+                // Некорректные данные в окне не должны останавливать миграцию остальных строк:
+                // окно переводится построчно, а нераскодируемые строки запоминаются
+                List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + window, Long.class, from, to);
+                for (Long id : ids) {
+                    try {
+                        migrated += jdbcTemplate.update("UPDATE " + table + " SET " + assignments + " WHERE id = ?", id);
+                    } catch (DataAccessException rowError) {
+                        failed.add(id);
+                        newlyFailed.add(id);
+                    }
+                }
+            }
+        }
+        if (migrated > 0) {
+            log.info("Переведено строк {} в бинарный формат: {}", table, migrated);
+        }
+        if (!newlyFailed.isEmpty()) {
+            log.warn("Не удалось перевести строки {} в бинарный формат, они пропущены: {}", table, newlyFailed);
+        }
+    }
+
+    private static String excluding(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return "";
+        }
+        return " AND id NOT IN (" + ids.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")";
+    }
+
+    private static String buildAssignments(List<String> columns) {
+        return columns.stream()
+                .map(column -> column + " = CASE WHEN " + isLegacy(column)
+                        + " THEN decode('01', 'hex') || decode(convert_from(" + column + ", 'UTF8'), 'base64')"
+                        + " ELSE " + column + " END")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String buildLegacyCondition(List<String> columns) {
+        return columns.stream()
+                .map(BinaryCiphertextMigrator::isLegacy)
+                .collect(Collectors.joining(" OR "));
+    }
+
+    private static String isLegacy(String column) {
+        return "(" + column + " IS NOT NULL AND length(" + column + ") > 0 AND get_byte(" + column + ", 0) <> 1)";
+    }
+}
@@ -0,0 +1,65 @@
+package com.traker.traker.security.crypto;
+
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Decrypts raw finance rows in bulk instead of going through one
+ * {@link jakarta.persistence.AttributeConverter} call per field. The key is
+ * resolved once for the whole batch; large batches are decrypted in parallel,
+ * which is safe because {@link DataEncryptionService} keeps its cipher state
+ * per thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkRecordDecryptor {
+
+    private final DataEncryptionService dataEncryptionService;
+
+    @Value("${app.security.bulk-decrypt.parallel-threshold:2000}")
+    private int parallelThreshold;
+
+    public List<FinanceRow> decrypt(List<EncryptedFinanceRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        // Ключ берётся в вызывающем потоке: ThreadLocal недоступен в потоках ForkJoinPool
+        byte[] key = EncryptionContextHolder.requireKey();
+        return (rows.size() >= parallelThreshold ? rows.parallelStream() : rows.stream())
+                .map(row -> decryptRow(key, row))
+                .toList();
+    }
+
+    /**
+     * Decrypts a single row with an explicitly supplied key, for callers that run
+     * outside the request thread (e.g. streaming exports).
+     */
+    public FinanceRow decryptRow(byte[] key, EncryptedFinanceRow row) {
+        return new FinanceRow(
+                row.id(),
+                row.categoryId(),
+                row.categoryName(),
+                decryptString(key, row.title()),
+                decryptString(key, row.description()),
+                decryptAmount(key, row.amount()),
+                row.period(),
+                row.recordDate());
+    }
+
+    private String decryptString(byte[] key, byte[] stored) {
+        byte[] plain = dataEncryptionService.decryptFromBinary(key, stored);
+        return plain == null ? null : new String(plain, StandardCharsets.UTF_8);
+    }
+
+    private BigDecimal decryptAmount(byte[] key, byte[] stored) {
+        byte[] plain = dataEncryptionService.decryptFromBinary(key, stored);
+        return plain == null ? null : new BigDecimal(new String(plain, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,56 @@
+package com.traker.traker.security.crypto;
+
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Counterpart of {@link BulkRecordDecryptor} for bulk inserts: encrypts plain
+ * finance rows into the binary column format with an explicitly supplied key,
+ * in parallel for large batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkRecordEncryptor {
+
+    private final DataEncryptionService dataEncryptionService;
+
+    @Value("${app.security.bulk-encrypt.parallel-threshold:500}")
+    private int parallelThreshold;
+
+    public List<EncryptedFinanceRow> encrypt(byte[] key, List<FinanceRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        return (rows.size() >= parallelThreshold ? rows.parallelStream() : rows.stream())
+                .map(row -> encryptRow(key, row))
+                .toList();
+    }
+
+    public EncryptedFinanceRow encryptRow(byte[] key, FinanceRow row) {
+        return new EncryptedFinanceRow(
+                row.id(),
+                row.categoryId(),
+                row.categoryName(),
+                encryptString(key, row.title()),
+                encryptString(key, row.description()),
+                encryptAmount(key, row.amount()),
+                row.period(),
+                row.recordDate());
+    }
+
+    private byte[] encryptString(byte[] key, String value) {
+        return value == null ? null : dataEncryptionService.encryptToBinary(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] encryptAmount(byte[] key, BigDecimal amount) {
+        return amount == null ? null
+                : dataEncryptionService.encryptToBinary(key, amount.toPlainString().getBytes(StandardCharsets.US_ASCII));
+    }
+}
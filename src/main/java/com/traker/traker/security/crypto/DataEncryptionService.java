@@ -6,7 +6,6 @@ import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
@@ -17,7 +16,9 @@ import java.util.Base64;
 
 /**
  * Provides AES/GCM helpers for encrypting arbitrary payloads with a
- * user-specific key. The encrypted value is stored as Base64 (IV + ciphertext).
+ * user-specific key. Wrapped keys are stored as Base64 (IV + ciphertext);
+ * entity columns use the compact binary format (version byte + IV + ciphertext),
+ * while the legacy Base64 text stored in the same columns stays readable.
  */
 @Service
 public class DataEncryptionService {
@@ -26,6 +27,10 @@ public class DataEncryptionService {
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH = 128;
     private static final int IV_LENGTH = 12;
+    /** Header byte of the binary column format. Legacy Base64 text never starts with it. */
+    public static final byte BINARY_FORMAT_V1 = 0x01;
+
+    private static final ThreadLocal<CipherContext> CIPHER_CONTEXT = ThreadLocal.withInitial(CipherContext::create);
 
     private final SecureRandom secureRandom = new SecureRandom();
     private int keySizeBytes = 32;
@@ -116,22 +121,60 @@ public class DataEncryptionService {
             return null;
         }
         try {
-            byte[] iv = new byte[IV_LENGTH];
+            CipherContext context = CIPHER_CONTEXT.get();
+            Cipher cipher = context.cipher;
+            byte[] iv = context.iv;
             secureRandom.nextBytes(iv);
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
             cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, AES), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
-            byte[] cipherBytes = cipher.doFinal(plainBytes);
+            byte[] combined = new byte[IV_LENGTH + cipher.getOutputSize(plainBytes.length)];
+            System.arraycopy(iv, 0, combined, 0, IV_LENGTH);
+            cipher.doFinal(plainBytes, 0, plainBytes.length, combined, IV_LENGTH);
+            return Base64.getEncoder().encodeToString(combined);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt secure data", e);
+        }
+    }
 
-            ByteBuffer buffer = ByteBuffer.allocate(iv.length + cipherBytes.length);
-            buffer.put(iv);
-            buffer.put(cipherBytes);
-            return Base64.getEncoder().encodeToString(buffer.array());
+    /**
+     * Encrypts the payload into the binary column format: version byte, IV and ciphertext.
+     */
+    public byte[] encryptToBinary(byte[] key, byte[] plainBytes) {
+        if (plainBytes == null) {
+            return null;
+        }
+        try {
+            CipherContext context = CIPHER_CONTEXT.get();
+            Cipher cipher = context.cipher;
+            byte[] iv = context.iv;
+            secureRandom.nextBytes(iv);
+
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, AES), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            byte[] stored = new byte[1 + IV_LENGTH + cipher.getOutputSize(plainBytes.length)];
+            stored[0] = BINARY_FORMAT_V1;
+            System.arraycopy(iv, 0, stored, 1, IV_LENGTH);
+            cipher.doFinal(plainBytes, 0, plainBytes.length, stored, 1 + IV_LENGTH);
+            return stored;
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Failed to encrypt secure data", e);
         }
     }
 
+    /**
+     * Decrypts a column value stored either in the binary format or as legacy
+     * Base64 text (written before the column type was switched to {@code bytea}).
+     */
+    public byte[] decryptFromBinary(byte[] key, byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length > 0 && stored[0] == BINARY_FORMAT_V1) {
+            return decryptToBytes(key, stored, 1, stored.length - 1);
+        }
+        byte[] combined = Base64.getDecoder().decode(stored);
+        return decryptToBytes(key, combined, 0, combined.length);
+    }
+
     public String decrypt(byte[] key, String cipherText) {
         byte[] bytes = decryptToBytes(key, cipherText);
         return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
@@ -141,18 +184,48 @@ public class DataEncryptionService {
         if (cipherText == null) {
             return null;
         }
+        byte[] combined = Base64.getDecoder().decode(cipherText);
+        return decryptToBytes(key, combined, 0, combined.length);
+    }
+
+    /**
+     * Decrypts an IV-prefixed payload directly from the given buffer without
+     * copying the IV or the ciphertext into separate arrays.
+     */
+    public byte[] decryptToBytes(byte[] key, byte[] combined, int offset, int length) {
+        if (length < IV_LENGTH) {
+            throw new IllegalStateException("Failed to decrypt secure data: payload is too short");
+        }
         try {
-            byte[] combined = Base64.getDecoder().decode(cipherText);
-            byte[] iv = new byte[IV_LENGTH];
-            byte[] cipherBytes = new byte[combined.length - IV_LENGTH];
-            System.arraycopy(combined, 0, iv, 0, IV_LENGTH);
-            System.arraycopy(combined, IV_LENGTH, cipherBytes, 0, cipherBytes.length);
-
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, AES), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
-            return cipher.doFinal(cipherBytes);
+            CipherContext context = CIPHER_CONTEXT.get();
+            Cipher cipher = context.cipher;
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, AES),
+                    new GCMParameterSpec(GCM_TAG_LENGTH, combined, offset, IV_LENGTH));
+            return cipher.doFinal(combined, offset + IV_LENGTH, length - IV_LENGTH);
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Failed to decrypt secure data", e);
         }
     }
+
+    /**
+     * Per-thread cipher state. {@link Cipher} instances are not thread-safe but are
+     * expensive to look up, so each thread keeps one. Key material is never cached
+     * here: the key spec is built per call from the caller's key.
+     */
+    private static final class CipherContext {
+        private final Cipher cipher;
+        private final byte[] iv = new byte[IV_LENGTH];
+
+        private CipherContext(Cipher cipher) {
+            this.cipher = cipher;
+        }
+
+        private static CipherContext create() {
+            try {
+                return new CipherContext(Cipher.getInstance(TRANSFORMATION));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES/GCM is not available in the current JVM", e);
+            }
+        }
+    }
 }
@@ -4,13 +4,14 @@ import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Encrypts {@link BigDecimal} values as strings in the database so financial
- * amounts remain opaque outside the application.
+ * Encrypts {@link BigDecimal} values (as their plain string form) in the
+ * database so financial amounts remain opaque outside the application.
  */
 @Converter(autoApply = false)
-public class EncryptedBigDecimalConverter implements AttributeConverter<BigDecimal, String> {
+public class EncryptedBigDecimalConverter implements AttributeConverter<BigDecimal, byte[]> {
 
     private static volatile DataEncryptionService encryptionService;
 
@@ -27,19 +28,20 @@ public class EncryptedBigDecimalConverter implements AttributeConverter<BigDecim
     }
 
     @Override
-    public String convertToDatabaseColumn(BigDecimal attribute) {
+    public byte[] convertToDatabaseColumn(BigDecimal attribute) {
         if (attribute == null) {
             return null;
         }
-        return requireService().encrypt(EncryptionContextHolder.requireKey(), attribute.toPlainString());
+        byte[] plain = attribute.toPlainString().getBytes(StandardCharsets.US_ASCII);
+        return requireService().encryptToBinary(EncryptionContextHolder.requireKey(), plain);
     }
 
     @Override
-    public BigDecimal convertToEntityAttribute(String dbData) {
+    public BigDecimal convertToEntityAttribute(byte[] dbData) {
         if (dbData == null) {
             return null;
         }
-        String plain = requireService().decrypt(EncryptionContextHolder.requireKey(), dbData);
-        return new BigDecimal(plain);
+        byte[] plain = requireService().decryptFromBinary(EncryptionContextHolder.requireKey(), dbData);
+        return new BigDecimal(new String(plain, StandardCharsets.US_ASCII));
     }
 }
@@ -3,12 +3,14 @@ package com.traker.traker.security.crypto;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * JPA converter that transparently encrypts/decrypts string values using the
  * per-request key stored in {@link EncryptionContextHolder}.
  */
 @Converter(autoApply = false)
-public class EncryptedStringConverter implements AttributeConverter<String, String> {
+public class EncryptedStringConverter implements AttributeConverter<String, byte[]> {
 
     private static volatile DataEncryptionService encryptionService;
 
@@ -25,18 +27,19 @@ public class EncryptedStringConverter implements AttributeConverter<String, Stri
     }
 
     @Override
-    public String convertToDatabaseColumn(String attribute) {
+    public byte[] convertToDatabaseColumn(String attribute) {
         if (attribute == null) {
             return null;
         }
-        return requireService().encrypt(EncryptionContextHolder.requireKey(), attribute);
+        return requireService().encryptToBinary(EncryptionContextHolder.requireKey(), attribute.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
-    public String convertToEntityAttribute(String dbData) {
+    public String convertToEntityAttribute(byte[] dbData) {
         if (dbData == null) {
             return null;
         }
-        return requireService().decrypt(EncryptionContextHolder.requireKey(), dbData);
+        byte[] plain = requireService().decryptFromBinary(EncryptionContextHolder.requireKey(), dbData);
+        return new String(plain, StandardCharsets.UTF_8);
     }
 }
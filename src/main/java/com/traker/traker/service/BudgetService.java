@@ -3,16 +3,12 @@ package com.traker.traker.service;
 import com.traker.traker.dto.budget.BudgetRequestDto;
 import com.traker.traker.dto.budget.BudgetResponseDto;
 import com.traker.traker.entity.Budget;
-import com.traker.traker.entity.ExpenseRecord;
-import com.traker.traker.entity.IncomeRecord;
 import com.traker.traker.entity.User;
 import com.traker.traker.repository.BudgetRepository;
-import com.traker.traker.repository.ExpenseRecordRepository;
-import com.traker.traker.repository.IncomeRecordRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.service.FinanceAggregationService.FinanceAggregation;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,13 +37,12 @@ import static com.traker.traker.utils.FinanceUtils.parsePeriod;
 public class BudgetService {
 
     private final BudgetRepository budgetRepository;
-    private final ExpenseRecordRepository expenseRecordRepository;
-    private final IncomeRecordRepository incomeRecordRepository;
-    private final UserRepository userRepository;
+    private final FinanceAggregationService financeAggregationService;
+    private final CurrentUserProvider currentUserProvider;
 
     @Transactional
     public BudgetResponseDto upsertBudget(BudgetRequestDto request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUser();
         YearMonth month = parsePeriod(request.getMonth());
         LocalDate periodStart = month.atDay(1);
 
@@ -74,12 +69,16 @@ public class BudgetService {
             throw new IllegalArgumentException("Необходимо указать месяц в формате yyyy-MM");
         }
         FinanceFilter filter = buildFilter(null, null, month);
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUser();
         LocalDate period = Objects.requireNonNull(filter.month()).atDay(1);
 
         Budget budget = budgetRepository.findByUserAndPeriod(user, period).orElse(null);
-        Map<LocalDate, BigDecimal> expenseTotals = aggregateExpenses(user, filter);
-        Map<LocalDate, BigDecimal> incomeTotals = aggregateIncomes(user, filter);
+        Map<LocalDate, BigDecimal> expenseTotals = financeAggregationService
+                .aggregate(RecordTable.EXPENSE, user.getId(), filter, null)
+                .getAllTotalsByPeriod();
+        Map<LocalDate, BigDecimal> incomeTotals = financeAggregationService
+                .aggregate(RecordTable.INCOME, user.getId(), filter, null)
+                .getAllTotalsByPeriod();
         BigDecimal actualExpenses = expenseTotals.getOrDefault(period, normalizeAmount(null));
         BigDecimal actualIncomes = incomeTotals.getOrDefault(period, normalizeAmount(null));
 
@@ -89,14 +88,28 @@ public class BudgetService {
     @Transactional(readOnly = true)
     public List<BudgetResponseDto> getBudgets(String fromDate, String toDate, String month) {
         FinanceFilter filter = buildFilter(fromDate, toDate, month);
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUser();
+        return buildBudgets(
+                user,
+                filter,
+                financeAggregationService.aggregate(RecordTable.EXPENSE, user.getId(), filter, null),
+                financeAggregationService.aggregate(RecordTable.INCOME, user.getId(), filter, null));
+    }
 
+    /**
+     * Формирует бюджеты по готовым агрегациям трат и доходов, чтобы дашборд не сканировал записи повторно.
+     */
+    @Transactional(readOnly = true)
+    public List<BudgetResponseDto> buildBudgets(User user,
+                                                FinanceFilter filter,
+                                                FinanceAggregation expenses,
+                                                FinanceAggregation incomes) {
         List<Budget> budgets = findBudgets(user, filter);
         Map<LocalDate, Budget> budgetByPeriod = budgets.stream()
                 .collect(Collectors.toMap(Budget::getPeriod, Function.identity(), (left, right) -> left, LinkedHashMap::new));
 
-        Map<LocalDate, BigDecimal> expenseTotals = aggregateExpenses(user, filter);
-        Map<LocalDate, BigDecimal> incomeTotals = aggregateIncomes(user, filter);
+        Map<LocalDate, BigDecimal> expenseTotals = expenses.getAllTotalsByPeriod();
+        Map<LocalDate, BigDecimal> incomeTotals = incomes.getAllTotalsByPeriod();
 
         SortedSet<LocalDate> periods = collectPeriods(filter, budgetByPeriod.keySet(), expenseTotals.keySet(), incomeTotals.keySet());
 
@@ -172,43 +185,4 @@ public class BudgetService {
         dto.setSavingsProgress(income.subtract(expense).subtract(savingsGoal));
         return dto;
     }
-
-    private Map<LocalDate, BigDecimal> aggregateExpenses(User user, FinanceFilter filter) {
-        List<ExpenseRecord> expenses = expenseRecordRepository.findByUserAndFilter(
-                user,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                null);
-        return expenses.stream()
-                .collect(Collectors.toMap(
-                        ExpenseRecord::getPeriod,
-                        record -> normalizeAmount(record.getAmount()),
-                        BigDecimal::add,
-                        LinkedHashMap::new));
-    }
-
-    private Map<LocalDate, BigDecimal> aggregateIncomes(User user, FinanceFilter filter) {
-        List<IncomeRecord> incomes = incomeRecordRepository.findByUserAndFilter(
-                user,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                null);
-        return incomes.stream()
-                .collect(Collectors.toMap(
-                        IncomeRecord::getPeriod,
-                        record -> normalizeAmount(record.getAmount()),
-                        BigDecimal::add,
-                        LinkedHashMap::new));
-    }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
@@ -1,6 +1,10 @@
 package com.traker.traker.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traker.traker.dto.DayEntriesDto;
 import com.traker.traker.dto.StatusDto;
+import com.traker.traker.dto.TimeEntryBatchRequestDto;
 import com.traker.traker.dto.TimeEntryDto;
 import com.traker.traker.entity.DayLog;
 import com.traker.traker.entity.Status;
@@ -11,22 +15,41 @@ import com.traker.traker.mapper.TimeEntryMapper;
 import com.traker.traker.repository.DayLogRepository;
 import com.traker.traker.repository.StatusRepository;
 import com.traker.traker.repository.TimeEntryRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.security.crypto.EncryptionContextHolder;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервисный класс для управления сущностями DayLog и TimeEntry.
@@ -35,11 +58,22 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class DayLogService {
+    private static final int MAX_BATCH_DAYS = 31;
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final String DEFAULT_STATUS = "Default";
+    private static final String OVERLAP_CONSTRAINT = "ex_time_entry_no_overlap";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final DayLogRepository dayLogRepository;
     private final TimeEntryRepository timeEntryRepository;
     private final TimeEntryMapper timeEntryMapper;
     private final StatusRepository statusRepository;
-    private final UserRepository userRepository;
+    private final StatusCache statusCache;
+    private final TimeEntryService timeEntryService;
+    private final CurrentUserProvider currentUserProvider;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
 
     /**
      * Получает список объектов TimeEntryDto для заданной даты и текущего пользователя.
@@ -49,8 +83,8 @@ public class DayLogService {
      */
     public List<TimeEntryDto> getTimeEntriesByDate(String date) {
         LocalDate localDate = parseDate(date);
-        User currentUser = getCurrentUser();
-        Optional<DayLog> dayLog = dayLogRepository.findByDate(localDate);
+        User currentUser = currentUserProvider.getCurrentUser();
+        Optional<DayLog> dayLog = dayLogRepository.findByUserAndDate(currentUser, localDate);
         return dayLog.map(dl -> timeEntryRepository.findByDayLogAndUserOrderByHourAscMinuteAsc(dl, currentUser).stream()
                         .sorted(Comparator.comparingInt(TimeEntry::getHour)
                                 .thenComparingInt(TimeEntry::getMinute))
@@ -59,6 +93,77 @@ public class DayLogService {
                 .orElseGet(List::of);
     }
 
+    /**
+     * Готовит потоковую выдачу записей текущего пользователя за диапазон дат, сгруппированных
+     * по дням: {@code [{"date": ..., "entries": [...]}, ...]}. Записи читаются одним запросом
+     * курсором и отсоединяются от контекста после записи, поэтому память не растёт с длиной диапазона.
+     * Дни без записей в ответ не попадают.
+     *
+     * @param from первая дата диапазона (yyyy-MM-dd)
+     * @param to   последняя дата диапазона включительно (yyyy-MM-dd)
+     */
+    public StreamingResponseBody streamTimeEntries(String from, String to) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("Дата окончания диапазона раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Диапазон не может быть длиннее " + MAX_RANGE_DAYS + " дней");
+        }
+        User currentUser = currentUserProvider.getCurrentUser();
+        // Тело ответа пишется в другом потоке: ключ для расшифровки комментариев передаём явно
+        byte[] requestKey = EncryptionContextHolder.requireKey();
+        byte[] key = Arrays.copyOf(requestKey, requestKey.length);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        return outputStream -> {
+            EncryptionContextHolder.setKey(key);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<TimeEntry> entries = timeEntryRepository.streamByUserAndDateRange(currentUser, fromDate, toDate)) {
+                        writeGroupedByDay(generator, entries);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                EncryptionContextHolder.clear();
+                Arrays.fill(key, (byte) 0);
+            }
+        };
+    }
+
+    private void writeGroupedByDay(JsonGenerator generator, Stream<TimeEntry> entries) throws IOException {
+        LocalDate currentDate = null;
+        Iterator<TimeEntry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            TimeEntry entry = iterator.next();
+            LocalDate date = entry.getDayLog().getDate();
+            if (!date.equals(currentDate)) {
+                if (currentDate != null) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                generator.writeStartObject();
+                generator.writeStringField("date", date.toString());
+                generator.writeArrayFieldStart("entries");
+                currentDate = date;
+            }
+            generator.writeObject(timeEntryMapper.toDto(entry));
+            entityManager.detach(entry);
+        }
+        if (currentDate != null) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
     /**
      * Обновляет или создает TimeEntry для заданной даты и текущего пользователя.
      *
@@ -75,30 +180,22 @@ public class DayLogService {
         LocalDate localDate = parseDate(date);
         logger.info("Дата после парсинга: {}", localDate);
 
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         logger.info("Текущий пользователь: {}", currentUser.getUsername());
 
-        DayLog dayLog = dayLogRepository.findByDate(localDate)
+        DayLog dayLog = dayLogRepository.findByUserAndDate(currentUser, localDate)
                 .orElseGet(() -> {
                     logger.info("DayLog не найден для даты: {}. Создание нового DayLog.", localDate);
-                    return createNewDayLog(localDate);
+                    return createNewDayLog(localDate, currentUser);
                 });
 
         validateInterval(timeEntryDto.getHour(), timeEntryDto.getMinute(), timeEntryDto.getEndHour(), timeEntryDto.getEndMinute());
 
         TimeEntry timeEntry = resolveExistingEntry(dayLog, currentUser, timeEntryDto);
+        LocalDate previousDate = timeEntry.getDayLog() != null ? timeEntry.getDayLog().getDate() : localDate;
 
-        int startMinutes = toMinutes(timeEntryDto.getHour(), timeEntryDto.getMinute());
-        int endMinutes = toMinutes(timeEntryDto.getEndHour(), timeEntryDto.getEndMinute());
-
-        Long excludeId = timeEntry.getId();
-        boolean hasOverlap = !timeEntryRepository
-                .findOverlappingEntries(dayLog, currentUser, startMinutes, endMinutes, excludeId)
-                .isEmpty();
-        if (hasOverlap) {
-            throw new IllegalArgumentException("Выбранный интервал пересекается с уже существующей активностью");
-        }
-
+        // Статус определяется до изменения записи: запрос статуса не должен сбрасывать её в базу
+        Status status = new StatusResolver(currentUser).resolve(timeEntryDto.getStatus());
         timeEntry.setDayLog(dayLog);
         timeEntry.setHour(timeEntryDto.getHour());
         timeEntry.setMinute(timeEntryDto.getMinute());
@@ -106,24 +203,139 @@ public class DayLogService {
         timeEntry.setEndMinute(timeEntryDto.getEndMinute());
         timeEntry.setWorked(timeEntryDto.isWorked());
         timeEntry.setComment(StringUtils.hasText(timeEntryDto.getComment()) ? timeEntryDto.getComment().trim() : null);
-        timeEntry.setStatus(resolveStatus(timeEntryDto.getStatus(), currentUser));
+        timeEntry.setStatus(status);
         timeEntry.setUser(currentUser);
 
         TimeEntry savedTimeEntry = timeEntryRepository.save(timeEntry);
+        flushCheckingOverlaps(false);
         logger.info("Сохраненный TimeEntry: {}", savedTimeEntry);
+        timeEntryService.refreshDailyRollup(currentUser.getId(), Set.copyOf(List.of(previousDate, localDate)));
 
         return timeEntryMapper.toDto(savedTimeEntry);
     }
 
+    /**
+     * Сохраняет записи времени сразу за несколько дней одним запросом. Пересечения
+     * проверяются в памяти сортировкой интервалов каждого дня, статусы пользователя
+     * загружаются один раз, а записи сохраняются пакетно.
+     *
+     * @param request дни с интервалами; при {@code replace} записи дня, не переданные в запросе, удаляются
+     * @return записи каждого переданного дня после сохранения, упорядоченные по дате и времени
+     */
+    @Transactional
+    public List<DayEntriesDto> saveDays(TimeEntryBatchRequestDto request) {
+        List<DayEntriesDto> days = request.getDays() == null ? List.of() : request.getDays();
+        if (days.isEmpty()) {
+            return List.of();
+        }
+        if (days.size() > MAX_BATCH_DAYS) {
+            throw new IllegalArgumentException("За один запрос можно сохранить не более " + MAX_BATCH_DAYS + " дней");
+        }
+        User currentUser = currentUserProvider.getCurrentUser();
+
+        Map<LocalDate, List<TimeEntryDto>> incoming = new TreeMap<>();
+        for (DayEntriesDto day : days) {
+            LocalDate date = parseDate(day.getDate());
+            List<TimeEntryDto> entries = day.getEntries() == null ? List.of() : day.getEntries();
+            entries.forEach(dto -> validateInterval(dto.getHour(), dto.getMinute(), dto.getEndHour(), dto.getEndMinute()));
+            if (incoming.putIfAbsent(date, entries) != null) {
+                throw new IllegalArgumentException("День " + date + " указан в запросе несколько раз");
+            }
+        }
+
+        Map<LocalDate, DayLog> dayLogs = dayLogRepository.findByUserAndDateIn(currentUser, incoming.keySet()).stream()
+                .collect(Collectors.toMap(DayLog::getDate, Function.identity()));
+        List<TimeEntry> existing = dayLogs.isEmpty()
+                ? List.of()
+                : timeEntryRepository.findByUserAndDayLogIn(currentUser, dayLogs.values());
+        Map<Long, TimeEntry> entriesById = existing.stream()
+                .collect(Collectors.toMap(TimeEntry::getId, Function.identity()));
+        Collection<DayLog> sourceDayLogs = loadMovedEntries(incoming, entriesById, currentUser);
+        Map<LocalDate, List<TimeEntry>> existingByDate = existing.stream()
+                .collect(Collectors.groupingBy(entry -> entry.getDayLog().getDate()));
+
+        // Записи могут меняться местами внутри дня, а промежуточные сбросы изменений случаются
+        // до конца сопоставления: ограничение на пересечения проверяется после сохранения всего пакета
+        setOverlapConstraintMode("DEFERRED");
+
+        // Сначала сопоставляем все записи запроса с существующими, чтобы запись,
+        // перенесённая в другой день, не участвовала в проверке пересечений старого дня
+        Map<LocalDate, List<TimeEntry>> resolved = new TreeMap<>();
+        Set<TimeEntry> claimed = Collections.newSetFromMap(new IdentityHashMap<>());
+        StatusResolver statuses = new StatusResolver(currentUser);
+        incoming.forEach((date, dtos) -> {
+            List<TimeEntry> dayEntries = new ArrayList<>(dtos.size());
+            for (TimeEntryDto dto : dtos) {
+                TimeEntry entry = dto.getId() != null
+                        ? entriesById.get(dto.getId())
+                        : findByStart(existingByDate.getOrDefault(date, List.of()), dto, claimed);
+                if (entry == null) {
+                    entry = new TimeEntry();
+                    entry.setUser(currentUser);
+                } else if (!claimed.add(entry)) {
+                    throw new IllegalArgumentException("Запись указана в запросе несколько раз");
+                }
+                applyBatchFields(entry, dto, statuses);
+                dayEntries.add(entry);
+            }
+            resolved.put(date, dayEntries);
+        });
+
+        List<TimeEntry> toSave = new ArrayList<>();
+        List<TimeEntry> toDelete = new ArrayList<>();
+        List<DayLog> emptyDayLogs = new ArrayList<>(sourceDayLogs);
+        Map<LocalDate, List<TimeEntry>> finalByDate = new TreeMap<>();
+        resolved.forEach((date, dayEntries) -> {
+            List<TimeEntry> finalEntries = new ArrayList<>(dayEntries);
+            for (TimeEntry entry : existingByDate.getOrDefault(date, List.of())) {
+                if (!claimed.contains(entry)) {
+                    (request.isReplace() ? toDelete : finalEntries).add(entry);
+                }
+            }
+            finalEntries.sort(Comparator.comparingInt((TimeEntry entry) -> toMinutes(entry.getHour(), entry.getMinute())));
+            ensureNoOverlaps(date, finalEntries);
+            finalByDate.put(date, finalEntries);
+
+            DayLog dayLog = dayLogs.get(date);
+            if (finalEntries.isEmpty()) {
+                if (dayLog != null) {
+                    emptyDayLogs.add(dayLog);
+                }
+            } else {
+                DayLog target = dayLog != null ? dayLog : createNewDayLog(date, currentUser);
+                dayEntries.forEach(entry -> entry.setDayLog(target));
+                toSave.addAll(dayEntries);
+            }
+        });
+
+        timeEntryRepository.deleteAll(toDelete);
+        timeEntryRepository.saveAll(toSave);
+        flushCheckingOverlaps(true);
+        emptyDayLogs.forEach(this::cleanupDayLogIfEmpty);
+
+        Set<LocalDate> touchedDates = new HashSet<>(finalByDate.keySet());
+        sourceDayLogs.forEach(dayLog -> touchedDates.add(dayLog.getDate()));
+        timeEntryService.refreshDailyRollup(currentUser.getId(), touchedDates);
+
+        log.info("Пакетное сохранение записей времени: дней {}, сохранено {}, удалено {}",
+                finalByDate.size(), toSave.size(), toDelete.size());
+        return finalByDate.entrySet().stream()
+                .map(day -> new DayEntriesDto(day.getKey().toString(), day.getValue().stream()
+                        .map(timeEntryMapper::toDto)
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
+
     @Transactional
     public void deleteTimeEntry(String date, int hour, int minute) {
         LocalDate localDate = parseDate(date);
-        User currentUser = getCurrentUser();
-        dayLogRepository.findByDate(localDate).ifPresent(dayLog ->
+        User currentUser = currentUserProvider.getCurrentUser();
+        dayLogRepository.findByUserAndDate(currentUser, localDate).ifPresent(dayLog ->
                 timeEntryRepository.findByDayLogAndHourAndMinuteAndUser(dayLog, hour, minute, currentUser)
                         .ifPresent(entry -> {
                             timeEntryRepository.delete(entry);
                             cleanupDayLogIfEmpty(dayLog);
+                            timeEntryService.refreshDailyRollup(currentUser.getId(), Set.of(localDate));
                         }));
     }
 
@@ -132,12 +344,13 @@ public class DayLogService {
         if (entryId == null) {
             return;
         }
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         TimeEntry entry = timeEntryRepository.findByIdAndUser(entryId, currentUser)
                 .orElseThrow(() -> new IllegalArgumentException("Запись не найдена или недоступна"));
         DayLog dayLog = entry.getDayLog();
         timeEntryRepository.delete(entry);
         cleanupDayLogIfEmpty(dayLog);
+        timeEntryService.refreshDailyRollup(currentUser.getId(), Set.of(dayLog.getDate()));
     }
 
     /**
@@ -156,14 +369,16 @@ public class DayLogService {
     }
 
     /**
-     * Создает новый объект DayLog для заданной даты.
+     * Создает новый объект DayLog для заданной даты и пользователя.
      *
      * @param date объект LocalDate
+     * @param user владелец дня
      * @return новый объект DayLog
      */
-    private DayLog createNewDayLog(LocalDate date) {
+    private DayLog createNewDayLog(LocalDate date, User user) {
         DayLog newDayLog = new DayLog();
         newDayLog.setDate(date);
+        newDayLog.setUser(user);
         return dayLogRepository.save(newDayLog);
     }
 
@@ -197,32 +412,136 @@ public class DayLogService {
                 .orElseGet(() -> createNewTimeEntry(dayLog, timeEntryDto.getHour(), timeEntryDto.getMinute(), user));
     }
 
-    private Status resolveStatus(StatusDto statusDto, User user) {
-        if (statusDto == null) {
-            return ensureDefaultStatus(user);
+    /**
+     * Догружает записи, которые переносятся в переданные дни из других дней по id.
+     *
+     * @return дни, из которых записи переносятся, чтобы удалить их, если они опустеют
+     */
+    private Collection<DayLog> loadMovedEntries(Map<LocalDate, List<TimeEntryDto>> incoming, Map<Long, TimeEntry> entriesById, User user) {
+        Set<Long> missingIds = incoming.values().stream()
+                .flatMap(List::stream)
+                .map(TimeEntryDto::getId)
+                .filter(id -> id != null && !entriesById.containsKey(id))
+                .collect(Collectors.toSet());
+        if (missingIds.isEmpty()) {
+            return List.of();
         }
+        List<TimeEntry> moved = timeEntryRepository.findByUserAndIdIn(user, missingIds);
+        if (moved.size() != missingIds.size()) {
+            throw new IllegalArgumentException("Запись не найдена или недоступна");
+        }
+        moved.forEach(entry -> entriesById.put(entry.getId(), entry));
+        return moved.stream()
+                .map(TimeEntry::getDayLog)
+                .collect(Collectors.toMap(DayLog::getId, Function.identity(), (first, second) -> first))
+                .values();
+    }
+
+    private TimeEntry findByStart(List<TimeEntry> dayEntries, TimeEntryDto dto, Set<TimeEntry> claimed) {
+        return dayEntries.stream()
+                .filter(entry -> entry.getHour() == dto.getHour() && entry.getMinute() == dto.getMinute())
+                .filter(entry -> !claimed.contains(entry))
+                .findFirst()
+                .orElse(null);
+    }
 
-        if (statusDto.getId() != null) {
-            return statusRepository.findByIdAndUser(statusDto.getId(), user)
-                    .orElseThrow(() -> new StatusNotFoundException(statusDto.getId()));
+    private void applyBatchFields(TimeEntry entry, TimeEntryDto dto, StatusResolver statuses) {
+        entry.setHour(dto.getHour());
+        entry.setMinute(dto.getMinute());
+        entry.setEndHour(dto.getEndHour());
+        entry.setEndMinute(dto.getEndMinute());
+        entry.setWorked(dto.isWorked());
+        entry.setComment(StringUtils.hasText(dto.getComment()) ? dto.getComment().trim() : null);
+        entry.setStatus(statuses.resolve(dto.getStatus()));
+    }
+
+    /**
+     * Проверяет отсортированные по началу интервалы дня: достаточно сравнить каждый со следующим.
+     */
+    private void ensureNoOverlaps(LocalDate date, List<TimeEntry> sortedEntries) {
+        for (int i = 1; i < sortedEntries.size(); i++) {
+            TimeEntry previous = sortedEntries.get(i - 1);
+            TimeEntry current = sortedEntries.get(i);
+            if (toMinutes(current.getHour(), current.getMinute()) < toMinutes(previous.getEndHour(), previous.getEndMinute())) {
+                throw new IllegalArgumentException(String.format(
+                        "Выбранный интервал пересекается с уже существующей активностью: %s %02d:%02d",
+                        date, current.getHour(), current.getMinute()));
+            }
         }
+    }
 
-        if (StringUtils.hasText(statusDto.getName())) {
-            return statusRepository.findByNameAndUser(statusDto.getName(), user)
-                    .orElseThrow(() -> new StatusNotFoundException(statusDto.getName()));
+    /**
+     * Сбрасывает изменения записей в базу и проверяет ограничение на пересечение интервалов,
+     * которое защищает и от одновременных сохранений из нескольких вкладок. Если ограничение
+     * было отложено, оно возвращается в немедленный режим и проверяется сразу.
+     */
+    private void flushCheckingOverlaps(boolean deferred) {
+        try {
+            timeEntryRepository.flush();
+            if (deferred) {
+                setOverlapConstraintMode("IMMEDIATE");
+            }
+        } catch (RuntimeException e) {
+            if (isOverlapViolation(e)) {
+                throw new IllegalArgumentException("Выбранный интервал пересекается с уже существующей активностью", e);
+            }
+            throw e;
         }
+    }
 
-        return ensureDefaultStatus(user);
+    private void setOverlapConstraintMode(String mode) {
+        entityManager.createNativeQuery("SET CONSTRAINTS " + OVERLAP_CONSTRAINT + " " + mode).executeUpdate();
     }
 
-    private Status ensureDefaultStatus(User user) {
-        return statusRepository.findByNameAndUser("Default", user)
-                .orElseGet(() -> {
-                    Status defaultStatus = new Status();
-                    defaultStatus.setName("Default");
-                    defaultStatus.setUser(user);
-                    return statusRepository.save(defaultStatus);
-                });
+    private boolean isOverlapViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Разрешает статусы записей одного сохранения по статусам пользователя, взятым
+     * из кэша один раз. Без явного статуса используется статус по умолчанию, который
+     * создаётся при первом обращении и дальше берётся из этого объекта, а не из базы.
+     */
+    private final class StatusResolver {
+        private final User user;
+        private final StatusCache.UserStatuses statuses;
+        private Status createdDefault;
+
+        private StatusResolver(User user) {
+            this.user = user;
+            this.statuses = statusCache.get(user);
+        }
+
+        private Status resolve(StatusDto statusDto) {
+            if (statusDto != null && statusDto.getId() != null) {
+                return statuses.findById(statusDto.getId())
+                        .orElseThrow(() -> new StatusNotFoundException(statusDto.getId()));
+            }
+
+            if (statusDto != null && StringUtils.hasText(statusDto.getName())) {
+                return statuses.findByName(statusDto.getName())
+                        .orElseThrow(() -> new StatusNotFoundException(statusDto.getName()));
+            }
+
+            if (createdDefault == null) {
+                createdDefault = statuses.findByName(DEFAULT_STATUS).orElseGet(this::createDefaultStatus);
+            }
+            return createdDefault;
+        }
+
+        private Status createDefaultStatus() {
+            Status defaultStatus = new Status();
+            defaultStatus.setName(DEFAULT_STATUS);
+            defaultStatus.setUser(user);
+            Status saved = statusRepository.save(defaultStatus);
+            statusCache.evict(user.getId());
+            return saved;
+        }
     }
 
     private void validateInterval(int startHour, int startMinute, int endHour, int endMinute) {
@@ -246,20 +565,8 @@ public class DayLogService {
         if (dayLog == null) {
             return;
         }
-        if (timeEntryRepository.findByDayLog(dayLog).isEmpty()) {
+        if (!timeEntryRepository.existsByDayLog(dayLog)) {
             dayLogRepository.delete(dayLog);
         }
     }
-
-    /**
-     * Возвращает текущего аутентифицированного пользователя.
-     *
-     * @return Текущий пользователь
-     */
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
@@ -8,10 +8,9 @@ import com.traker.traker.exception.ExpenseCategoryNotFoundException;
 import com.traker.traker.mapper.ExpenseCategoryMapper;
 import com.traker.traker.repository.ExpenseCategoryRepository;
 import com.traker.traker.repository.ExpenseRecordRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,46 +23,52 @@ public class ExpenseCategoryService {
     private final ExpenseCategoryRepository expenseCategoryRepository;
     private final ExpenseRecordRepository expenseRecordRepository;
     private final ExpenseCategoryMapper expenseCategoryMapper;
-    private final UserRepository userRepository;
+    private final FinanceRollupService financeRollupService;
+    private final FinanceCategoryCache financeCategoryCache;
+    private final CurrentUserProvider currentUserProvider;
 
     public ExpenseCategoryDto createCategory(ExpenseCategoryDto dto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         validateUniqueName(dto.getName(), null, currentUser);
         ExpenseCategory category = expenseCategoryMapper.toEntity(dto);
         category.setUser(currentUser);
         ExpenseCategory saved = expenseCategoryRepository.save(category);
+        financeCategoryCache.evict(RecordTable.EXPENSE, currentUser.getId());
         return expenseCategoryMapper.toDto(saved);
     }
 
     public ExpenseCategoryDto updateCategory(Long id, ExpenseCategoryDto dto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         ExpenseCategory existing = expenseCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new ExpenseCategoryNotFoundException(id));
         validateUniqueName(dto.getName(), id, currentUser);
         expenseCategoryMapper.updateEntityFromDto(dto, existing);
         ExpenseCategory saved = expenseCategoryRepository.save(existing);
+        financeRollupService.evictCache(RecordTable.EXPENSE, currentUser.getId());
+        financeCategoryCache.evict(RecordTable.EXPENSE, currentUser.getId());
         return expenseCategoryMapper.toDto(saved);
     }
 
     public List<ExpenseCategoryDto> getCategories() {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         return expenseCategoryRepository.findByUser(currentUser).stream()
                 .map(expenseCategoryMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     public void deleteCategory(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         ExpenseCategory category = expenseCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new ExpenseCategoryNotFoundException(id));
         if (expenseRecordRepository.existsByUserAndCategory_Id(currentUser, id)) {
             throw new CategoryInUseException("Нельзя удалить категорию с прикрепленными тратами. Перенесите записи или удалите их.");
         }
         expenseCategoryRepository.delete(category);
+        financeCategoryCache.evict(RecordTable.EXPENSE, currentUser.getId());
     }
 
     public ExpenseCategory getCategory(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         return expenseCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new ExpenseCategoryNotFoundException(id));
     }
@@ -79,11 +84,4 @@ public class ExpenseCategoryService {
                     }
                 });
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
@@ -1,5 +1,9 @@
 package com.traker.traker.service;
 
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.expense.ExpenseBatchCreateRequestDto;
 import com.traker.traker.dto.expense.ExpenseBatchUpdateRequestDto;
 import com.traker.traker.dto.expense.ExpenseRecordRequestDto;
@@ -14,32 +18,49 @@ import com.traker.traker.exception.ExpenseRecordNotFoundException;
 import com.traker.traker.mapper.ExpenseRecordMapper;
 import com.traker.traker.repository.ExpenseCategoryRepository;
 import com.traker.traker.repository.ExpenseRecordRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceCategory;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.security.crypto.BulkRecordDecryptor;
+import com.traker.traker.service.FinanceAggregationService.CategoryAggregation;
+import com.traker.traker.service.FinanceAggregationService.FinanceAggregation;
+import com.traker.traker.service.FinanceExportService.ExportFormat;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.RecordCursor;
 import static com.traker.traker.utils.FinanceUtils.buildFilter;
+import static com.traker.traker.utils.FinanceUtils.decodeCursor;
+import static com.traker.traker.utils.FinanceUtils.encodeCursor;
 import static com.traker.traker.utils.FinanceUtils.formatPeriod;
 import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+import static com.traker.traker.utils.FinanceUtils.normalizeCategoryFilter;
 import static com.traker.traker.utils.FinanceUtils.parseOptionalPeriod;
 import static com.traker.traker.utils.FinanceUtils.parsePeriod;
+import static com.traker.traker.utils.FinanceUtils.resolvePageSize;
 
 @Service
 @RequiredArgsConstructor
@@ -48,11 +69,18 @@ public class ExpenseRecordService {
     private final ExpenseRecordRepository expenseRecordRepository;
     private final ExpenseCategoryRepository expenseCategoryRepository;
     private final ExpenseRecordMapper expenseRecordMapper;
-    private final UserRepository userRepository;
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordDecryptor bulkRecordDecryptor;
+    private final FinanceRollupService financeRollupService;
+    private final FinanceAggregationService financeAggregationService;
+    private final FinanceExportService financeExportService;
+    private final FinanceImportService financeImportService;
+    private final FinanceCategoryCache financeCategoryCache;
+    private final CurrentUserProvider currentUserProvider;
 
     @Transactional
     public List<ExpenseRecordResponseDto> createBatch(ExpenseBatchCreateRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         YearMonth defaultPeriod = parseOptionalPeriod(request.getDefaultPeriod());
 
         List<ExpenseRecord> records = request.getExpenses().stream()
@@ -60,23 +88,31 @@ public class ExpenseRecordService {
                 .collect(Collectors.toList());
 
         List<ExpenseRecord> saved = expenseRecordRepository.saveAll(records);
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        saved.forEach(record -> addToRollup(delta, record));
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
         return expenseRecordMapper.toDtoList(saved);
     }
 
     @Transactional
     public ExpenseRecordResponseDto updateExpense(Long id, ExpenseRecordRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         ExpenseRecord record = expenseRecordRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new ExpenseRecordNotFoundException(id));
 
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        removeFromRollup(delta, record);
         applyFullUpdate(record, request, currentUser);
         ExpenseRecord saved = expenseRecordRepository.save(record);
+        addToRollup(delta, saved);
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
         return expenseRecordMapper.toDto(saved);
     }
 
     @Transactional
     public List<ExpenseRecordResponseDto> updateExpenses(ExpenseBatchUpdateRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         List<ExpenseRecordUpdateDto> updates = request.getRecords();
         if (updates == null || updates.isEmpty()) {
             return List.of();
@@ -89,15 +125,19 @@ public class ExpenseRecordService {
         Map<Long, ExpenseRecord> existing = expenseRecordRepository.findByUserAndIdIn(currentUser, new ArrayList<>(ids)).stream()
                 .collect(Collectors.toMap(ExpenseRecord::getId, Function.identity()));
 
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
         for (ExpenseRecordUpdateDto updateDto : updates) {
             ExpenseRecord record = existing.get(updateDto.getId());
             if (record == null) {
                 throw new ExpenseRecordNotFoundException(updateDto.getId());
             }
+            removeFromRollup(delta, record);
             applyPartialUpdate(record, updateDto, currentUser);
+            addToRollup(delta, record);
         }
 
         expenseRecordRepository.saveAll(existing.values());
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
         return updates.stream()
                 .map(update -> expenseRecordMapper.toDto(existing.get(update.getId())))
                 .collect(Collectors.toList());
@@ -105,95 +145,140 @@ public class ExpenseRecordService {
 
     @Transactional
     public void deleteExpense(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         ExpenseRecord record = expenseRecordRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new ExpenseRecordNotFoundException(id));
         expenseRecordRepository.delete(record);
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        removeFromRollup(delta, record);
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
     }
 
+    /**
+     * Удаляет записи одним запросом без загрузки сущностей. Расшифровываются только
+     * суммы удалённых строк для корректировки агрегатов; чужие и несуществующие id пропускаются.
+     */
     @Transactional
-    public void deleteExpenses(List<Long> ids) {
+    public BulkOperationResultDto deleteExpenses(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
-            return;
-        }
-        User currentUser = getCurrentUser();
-        List<ExpenseRecord> records = expenseRecordRepository.findByUserAndIdIn(currentUser, ids);
-        long requested = ids.stream().distinct().count();
-        if (records.size() != requested) {
-            Set<Long> foundIds = records.stream().map(ExpenseRecord::getId).collect(Collectors.toSet());
-            Long missing = ids.stream().filter(id -> !foundIds.contains(id)).findFirst().orElse(null);
-            throw new ExpenseRecordNotFoundException(missing);
+            return new BulkOperationResultDto(0);
         }
-        expenseRecordRepository.deleteAll(records);
+        User currentUser = currentUserProvider.getCurrentUser();
+        List<FinanceRow> deleted = bulkRecordDecryptor.decrypt(
+                financeRecordRowRepository.deleteByUserAndIds(RecordTable.EXPENSE, currentUser.getId(), ids));
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        deleted.forEach(row -> delta.remove(row.categoryId(), row.period(), row.amount()));
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
+        return new BulkOperationResultDto(deleted.size());
+    }
+
+    /**
+     * Переносит записи в другую категорию одним запросом без загрузки и перешифрования сущностей.
+     */
+    @Transactional
+    public BulkOperationResultDto updateExpenseCategory(BulkCategoryRequestDto request) {
+        User currentUser = currentUserProvider.getCurrentUser();
+        ExpenseCategory category = findCategory(request.getCategoryId(), currentUser);
+        List<FinanceRow> moved = bulkRecordDecryptor.decrypt(financeRecordRowRepository.updateCategoryByUserAndIds(
+                RecordTable.EXPENSE, currentUser.getId(), request.getIds(), category.getId()));
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        moved.forEach(row -> {
+            delta.remove(row.categoryId(), row.period(), row.amount());
+            delta.add(category.getId(), row.period(), row.amount());
+        });
+        financeRollupService.apply(RecordTable.EXPENSE, currentUser.getId(), delta);
+        return new BulkOperationResultDto(moved.size());
     }
 
     @Transactional(readOnly = true)
     public List<ExpenseRecordResponseDto> getExpenses(String fromDate, String toDate, String month, List<Long> categoryIds) {
         FinanceFilter filter = buildFilter(fromDate, toDate, month);
-        User currentUser = getCurrentUser();
-        List<ExpenseRecord> records = expenseRecordRepository.findByUserAndFilter(
-                currentUser,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                normalizeCategoryFilter(categoryIds));
-        return expenseRecordMapper.toDtoList(records);
+        User currentUser = currentUserProvider.getCurrentUser();
+        List<FinanceRow> rows = loadRows(currentUser, filter, categoryIds, true);
+        return expenseRecordMapper.toDtoListFromRows(rows);
     }
 
+    /**
+     * Возвращает страницу записей, начиная с позиции из курсора предыдущей страницы.
+     */
     @Transactional(readOnly = true)
-    public ExpenseSummaryDto getSummary(String fromDate, String toDate, String month, List<Long> categoryIds) {
+    public CursorPageDto<ExpenseRecordResponseDto> getExpensePage(String fromDate, String toDate, String month,
+                                                                  List<Long> categoryIds, String cursor, Integer size) {
         FinanceFilter filter = buildFilter(fromDate, toDate, month);
-        User currentUser = getCurrentUser();
-
-        List<ExpenseRecord> records = expenseRecordRepository.findByUserAndFilter(
-                currentUser,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                normalizeCategoryFilter(categoryIds));
-
-        Map<LocalDate, BigDecimal> totalsByPeriod = new LinkedHashMap<>();
-        Map<Long, CategoryAggregation> categoryAggregations = new LinkedHashMap<>();
-
-        for (ExpenseRecord record : records) {
-            BigDecimal amount = normalizeAmount(record.getAmount());
-            totalsByPeriod.merge(record.getPeriod(), amount, BigDecimal::add);
-
-            Long categoryId = record.getCategory().getId();
-            CategoryAggregation aggregation = categoryAggregations.computeIfAbsent(
-                    categoryId,
-                    id -> new CategoryAggregation(categoryId, record.getCategory().getName()));
-            aggregation.addAmount(record.getPeriod(), amount);
+        User currentUser = currentUserProvider.getCurrentUser();
+        Slice<EncryptedFinanceRow> slice = financeRecordRowRepository.findPageByUserAndFilter(
+                RecordTable.EXPENSE,
+                currentUser.getId(),
+                filter,
+                normalizeCategoryFilter(categoryIds),
+                decodeCursor(cursor),
+                resolvePageSize(size));
+
+        List<FinanceRow> rows = bulkRecordDecryptor.decrypt(slice.getContent());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            FinanceRow last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(new RecordCursor(last.period(), last.recordDate(), last.id()));
         }
+        return new CursorPageDto<>(expenseRecordMapper.toDtoListFromRows(rows), nextCursor, slice.hasNext());
+    }
+
+    /**
+     * Готовит потоковую выгрузку записей в NDJSON или CSV.
+     */
+    public StreamingResponseBody exportExpenses(String fromDate, String toDate, String month,
+                                                List<Long> categoryIds, ExportFormat format) {
+        return financeExportService.export(RecordTable.EXPENSE, fromDate, toDate, month, categoryIds, format,
+                expenseRecordMapper::toDto);
+    }
+
+    /**
+     * Импортирует траты из выписки CSV или OFX. Категории пользователя загружаются
+     * один раз, отсутствующие создаются по имени при первой встрече.
+     */
+    public ImportResultDto importExpenses(MultipartFile file, String format, String defaultCategory) {
+        User currentUser = currentUserProvider.getCurrentUser();
+        Map<String, Long> categories = new HashMap<>();
+        financeCategoryCache.get(RecordTable.EXPENSE, currentUser.getId()).all()
+                .forEach(category -> categories.putIfAbsent(category.name().toLowerCase(Locale.ROOT), category.id()));
+        return financeImportService.importStatement(RecordTable.EXPENSE, file, format, defaultCategory, categories,
+                name -> findOrCreateCategory(currentUser, name));
+    }
 
-        BigDecimal totalAmount = records.stream()
-                .map(ExpenseRecord::getAmount)
-                .map(amount -> normalizeAmount(amount))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional(readOnly = true)
+    public ExpenseSummaryDto getSummary(String fromDate, String toDate, String month, List<Long> categoryIds) {
+        FinanceFilter filter = buildFilter(fromDate, toDate, month);
+        User currentUser = currentUserProvider.getCurrentUser();
+        return buildSummary(financeAggregationService.aggregate(RecordTable.EXPENSE, currentUser.getId(), filter, categoryIds));
+    }
 
+    /**
+     * Формирует сводку из готовой агрегации, чтобы дашборд не сканировал записи повторно.
+     */
+    public ExpenseSummaryDto buildSummary(FinanceAggregation aggregation) {
         ExpenseSummaryDto summaryDto = new ExpenseSummaryDto();
-        BigDecimal normalizedTotal = normalizeAmount(totalAmount);
+        BigDecimal normalizedTotal = normalizeAmount(aggregation.getTotal());
         summaryDto.setTotalAmount(normalizedTotal);
 
-        summaryDto.setTotalsByCategory(categoryAggregations.values().stream()
+        summaryDto.setTotalsByCategory(aggregation.getCategories().stream()
                 .sorted(Comparator.comparing(CategoryAggregation::getCategoryName, String.CASE_INSENSITIVE_ORDER))
-                .map(aggregation -> new ExpenseSummaryDto.CategoryTotalDto(
-                        aggregation.getCategoryId(),
-                        aggregation.getCategoryName(),
-                        normalizeAmount(aggregation.getTotal()),
-                        calculatePercentage(normalizeAmount(aggregation.getTotal()), normalizedTotal)))
+                .map(category -> new ExpenseSummaryDto.CategoryTotalDto(
+                        category.getCategoryId(),
+                        category.getCategoryName(),
+                        normalizeAmount(category.getTotal()),
+                        calculatePercentage(normalizeAmount(category.getTotal()), normalizedTotal)))
                 .collect(Collectors.toList()));
 
-        summaryDto.setTotalsByMonth(totalsByPeriod.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
+        summaryDto.setTotalsByMonth(aggregation.getTotalsByPeriod().entrySet().stream()
                 .map(entry -> new ExpenseSummaryDto.MonthlyTotalDto(
                         formatPeriod(entry.getKey()),
                         normalizeAmount(entry.getValue())))
                 .collect(Collectors.toList()));
 
-        summaryDto.setCategoryMonthlyTotals(buildCategoryMonthlySummary(categoryAggregations));
+        summaryDto.setCategoryMonthlyTotals(buildCategoryMonthlySummary(aggregation.getCategories()));
         return summaryDto;
     }
 
@@ -204,23 +289,52 @@ public class ExpenseRecordService {
         return amount.multiply(BigDecimal.valueOf(100)).divide(total, 2, RoundingMode.HALF_UP);
     }
 
-    private List<Long> normalizeCategoryFilter(List<Long> categoryIds) {
-        if (categoryIds == null || categoryIds.isEmpty()) {
-            return null;
-        }
-        List<Long> distinct = categoryIds.stream()
-                .filter(id -> id != null)
-                .distinct()
-                .collect(Collectors.toList());
-        return distinct.isEmpty() ? null : distinct;
+    private List<FinanceRow> loadRows(User user, FinanceFilter filter, List<Long> categoryIds, boolean withText) {
+        List<EncryptedFinanceRow> encrypted = financeRecordRowRepository.findByUserAndFilter(
+                RecordTable.EXPENSE,
+                user.getId(),
+                filter,
+                normalizeCategoryFilter(categoryIds),
+                withText);
+        return bulkRecordDecryptor.decrypt(encrypted);
+    }
+
+    private Long findOrCreateCategory(User user, String name) {
+        return expenseCategoryRepository.findByUserAndNameIgnoreCase(user, name)
+                .orElseGet(() -> {
+                    ExpenseCategory category = new ExpenseCategory();
+                    category.setName(name);
+                    category.setUser(user);
+                    ExpenseCategory saved = expenseCategoryRepository.save(category);
+                    financeCategoryCache.evict(RecordTable.EXPENSE, user.getId());
+                    return saved;
+                })
+                .getId();
     }
 
-    private List<ExpenseSummaryDto.CategoryMonthlySummaryDto> buildCategoryMonthlySummary(Map<Long, CategoryAggregation> aggregations) {
-        return aggregations.values().stream()
+    /**
+     * Находит категорию пользователя в закэшированном словаре и возвращает ссылку на неё
+     * без запроса к базе; имя и описание берутся из словаря.
+     */
+    private ExpenseCategory findCategory(Long categoryId, User user) {
+        FinanceCategory category = financeCategoryCache.get(RecordTable.EXPENSE, user.getId()).findById(categoryId)
+                .orElseThrow(() -> new ExpenseCategoryNotFoundException(categoryId));
+        return new ExpenseCategory(category.id(), category.name(), category.description(), user);
+    }
+
+    private void addToRollup(FinanceRollupService.Delta delta, ExpenseRecord record) {
+        delta.add(record.getCategory().getId(), record.getPeriod(), record.getAmount());
+    }
+
+    private void removeFromRollup(FinanceRollupService.Delta delta, ExpenseRecord record) {
+        delta.remove(record.getCategory().getId(), record.getPeriod(), record.getAmount());
+    }
+
+    private List<ExpenseSummaryDto.CategoryMonthlySummaryDto> buildCategoryMonthlySummary(Collection<CategoryAggregation> aggregations) {
+        return aggregations.stream()
                 .sorted(Comparator.comparing(CategoryAggregation::getCategoryName, String.CASE_INSENSITIVE_ORDER))
                 .map(aggregation -> {
                     List<ExpenseSummaryDto.MonthlyTotalDto> monthlyTotals = aggregation.getMonthlyTotals().entrySet().stream()
-                            .sorted(Map.Entry.comparingByKey())
                             .map(entry -> new ExpenseSummaryDto.MonthlyTotalDto(
                                     formatPeriod(entry.getKey()),
                                     normalizeAmount(entry.getValue())))
@@ -233,42 +347,8 @@ public class ExpenseRecordService {
                 .collect(Collectors.toList());
     }
 
-    private static class CategoryAggregation {
-        private final Long categoryId;
-        private final String categoryName;
-        private BigDecimal total = BigDecimal.ZERO;
-        private final Map<LocalDate, BigDecimal> monthlyTotals = new LinkedHashMap<>();
-
-        CategoryAggregation(Long categoryId, String categoryName) {
-            this.categoryId = categoryId;
-            this.categoryName = categoryName;
-        }
-
-        void addAmount(LocalDate period, BigDecimal amount) {
-            total = total.add(amount);
-            monthlyTotals.merge(period, amount, BigDecimal::add);
-        }
-
-        Long getCategoryId() {
-            return categoryId;
-        }
-
-        String getCategoryName() {
-            return categoryName;
-        }
-
-        BigDecimal getTotal() {
-            return total;
-        }
-
-        Map<LocalDate, BigDecimal> getMonthlyTotals() {
-            return monthlyTotals;
-        }
-    }
-
     private ExpenseRecord mapToEntity(ExpenseRecordRequestDto dto, YearMonth defaultPeriod, User currentUser) {
-        ExpenseCategory category = expenseCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                .orElseThrow(() -> new ExpenseCategoryNotFoundException(dto.getCategoryId()));
+        ExpenseCategory category = findCategory(dto.getCategoryId(), currentUser);
 
         LocalDate expenseDate = dto.getExpenseDate();
         YearMonth period = resolvePeriod(dto, defaultPeriod, expenseDate);
@@ -285,8 +365,7 @@ public class ExpenseRecordService {
     }
 
     private void applyFullUpdate(ExpenseRecord record, ExpenseRecordRequestDto dto, User currentUser) {
-        ExpenseCategory category = expenseCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                .orElseThrow(() -> new ExpenseCategoryNotFoundException(dto.getCategoryId()));
+        ExpenseCategory category = findCategory(dto.getCategoryId(), currentUser);
 
         LocalDate expenseDate = dto.getExpenseDate();
         YearMonth period = resolvePeriod(dto, null, expenseDate);
@@ -316,9 +395,7 @@ public class ExpenseRecordService {
         }
 
         if (dto.getCategoryId() != null) {
-            ExpenseCategory category = expenseCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                    .orElseThrow(() -> new ExpenseCategoryNotFoundException(dto.getCategoryId()));
-            record.setCategory(category);
+            record.setCategory(findCategory(dto.getCategoryId(), currentUser));
         }
 
         if (dto.getExpenseDate() != null) {
@@ -355,11 +432,4 @@ public class ExpenseRecordService {
         }
         throw new IllegalArgumentException("Для траты необходимо указать дату или месяц");
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
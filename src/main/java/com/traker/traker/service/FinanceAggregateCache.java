@@ -0,0 +1,251 @@
+package com.traker.traker.service;
+
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.FinanceRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный по размеру LRU-кэш расшифрованных агрегатов пользователя (категория × месяц)
+ * для одного типа записей. Изменения записей применяются к закэшированным суммам
+ * после фиксации транзакции, поэтому сводки и бюджеты читают данные из памяти.
+ * <p>
+ * Счётчик поколений защищает от гонки между заполнением кэша и параллельной
+ * записью: загруженные данные кладутся в кэш, только если за время загрузки не
+ * было изменений того же пользователя и типа записей, а дельта применяется только
+ * к записи, загруженной до начала изменения; иначе запись удаляется и будет перечитана.
+ * Поколения последних изменений хранятся по ключу в ограниченной карте: для ключей,
+ * вытесненных из неё, действует консервативная нижняя граница.
+ */
+@Component
+public class FinanceAggregateCache {
+
+    private static final Comparator<FinanceRow> ROW_ORDER = Comparator
+            .comparing(FinanceRow::period)
+            .thenComparing(FinanceRow::categoryId);
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<CacheKey, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<CacheKey, Long> changedAt = new LinkedHashMap<>();
+    private long forgottenChangesUpTo;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FinanceAggregateCache(@Value("${app.finance.aggregate-cache.max-size:1000}") int maxSize,
+                                 @Value("${app.finance.aggregate-cache.ttl:PT30M}") Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша агрегатов должен быть положительным");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = Clock.systemUTC();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Возвращает агрегаты за диапазон месяцев и набор категорий, если они есть в кэше.
+     */
+    public Optional<List<FinanceRow>> find(RecordTable table, Long userId,
+                                           LocalDate fromPeriod, LocalDate toPeriod, List<Long> categoryIds) {
+        Map<FinanceRollupService.RollupKey, Aggregate> aggregates;
+        synchronized (entries) {
+            CacheKey cacheKey = new CacheKey(userId, table);
+            Entry entry = entries.get(cacheKey);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            if (entry.expiresAt <= clock.millis()) {
+                entries.remove(cacheKey);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            aggregates = new HashMap<>(entry.aggregates);
+        }
+
+        List<FinanceRow> rows = aggregates.entrySet().stream()
+                .filter(item -> fromPeriod == null || !item.getKey().period().isBefore(fromPeriod))
+                .filter(item -> toPeriod == null || !item.getKey().period().isAfter(toPeriod))
+                .filter(item -> categoryIds == null || categoryIds.contains(item.getKey().categoryId()))
+                .map(item -> new FinanceRow(
+                        null,
+                        item.getKey().categoryId(),
+                        item.getValue().categoryName(),
+                        null,
+                        null,
+                        item.getValue().total(),
+                        item.getKey().period(),
+                        null))
+                .sorted(ROW_ORDER)
+                .toList();
+        return Optional.of(rows);
+    }
+
+    /**
+     * Текущее поколение; фиксируется перед чтением агрегатов из базы и передаётся в {@link #put}.
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Кладёт в кэш все агрегаты пользователя, если с момента {@code loadedGeneration}
+     * не начиналось ни одно изменение агрегатов этого пользователя и типа записей.
+     */
+    public void put(RecordTable table, Long userId, List<FinanceRow> rows, long loadedGeneration) {
+        Map<FinanceRollupService.RollupKey, Aggregate> aggregates = new HashMap<>();
+        for (FinanceRow row : rows) {
+            aggregates.put(new FinanceRollupService.RollupKey(row.categoryId(), row.period()),
+                    new Aggregate(row.categoryName(), row.amount()));
+        }
+        CacheKey cacheKey = new CacheKey(userId, table);
+        synchronized (entries) {
+            if (lastChange(cacheKey) > loadedGeneration) {
+                return;
+            }
+            entries.put(cacheKey,
+                    new Entry(aggregates, loadedGeneration, clock.millis() + ttlMillis));
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Отмечает начало изменения агрегатов; возвращённое поколение передаётся в {@link #applyDelta}.
+     */
+    public long beginWrite(RecordTable table, Long userId) {
+        synchronized (entries) {
+            return markChanged(new CacheKey(userId, table));
+        }
+    }
+
+    /**
+     * Применяет зафиксированную дельту к закэшированным суммам. Если запись кэша
+     * могла уже учесть это изменение или дельта не сводится к изменению известных сумм,
+     * запись удаляется.
+     */
+    public void applyDelta(RecordTable table, Long userId, FinanceRollupService.Delta delta, long writeGeneration) {
+        synchronized (entries) {
+            CacheKey cacheKey = new CacheKey(userId, table);
+            markChanged(cacheKey);
+            Entry entry = entries.get(cacheKey);
+            if (entry == null) {
+                return;
+            }
+            if (entry.loadedGeneration >= writeGeneration || !isApplicable(entry, delta)) {
+                entries.remove(cacheKey);
+                evictions.incrementAndGet();
+                return;
+            }
+            delta.changes().forEach((rollupKey, change) -> {
+                Aggregate current = entry.aggregates.get(rollupKey);
+                BigDecimal total = current.total().add(change.amount());
+                entry.aggregates.put(rollupKey, new Aggregate(current.categoryName(), total));
+            });
+        }
+    }
+
+    public void evict(RecordTable table, Long userId) {
+        CacheKey cacheKey = new CacheKey(userId, table);
+        synchronized (entries) {
+            markChanged(cacheKey);
+            if (entries.remove(cacheKey) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            forgottenChangesUpTo = generation.incrementAndGet();
+            changedAt.clear();
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    /**
+     * Дельта применима, если она только меняет суммы уже известных агрегатов: удаление
+     * или перенос записи может обнулить агрегат, который в базе удаляется вместе со строкой.
+     */
+    private boolean isApplicable(Entry entry, FinanceRollupService.Delta delta) {
+        return delta.changes().entrySet().stream()
+                .allMatch(change -> change.getValue().count() >= 0
+                        && entry.aggregates.containsKey(change.getKey()));
+    }
+
+    /**
+     * Отмечает изменение агрегатов ключа новым поколением. Вызывается под блокировкой {@code entries}.
+     */
+    private long markChanged(CacheKey cacheKey) {
+        long tick = generation.incrementAndGet();
+        changedAt.remove(cacheKey);
+        changedAt.put(cacheKey, tick);
+        Iterator<Long> iterator = changedAt.values().iterator();
+        while (changedAt.size() > maxSize && iterator.hasNext()) {
+            forgottenChangesUpTo = Math.max(forgottenChangesUpTo, iterator.next());
+            iterator.remove();
+        }
+        return tick;
+    }
+
+    private long lastChange(CacheKey cacheKey) {
+        Long tick = changedAt.get(cacheKey);
+        return tick != null ? tick : forgottenChangesUpTo;
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private record CacheKey(Long userId, RecordTable table) {
+    }
+
+    private record Aggregate(String categoryName, BigDecimal total) {
+    }
+
+    private record Entry(Map<FinanceRollupService.RollupKey, Aggregate> aggregates,
+                         long loadedGeneration,
+                         long expiresAt) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.traker.traker.service;
+
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.crypto.BulkRecordDecryptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+import static com.traker.traker.utils.FinanceUtils.normalizeCategoryFilter;
+
+/**
+ * Общий механизм агрегации трат и доходов. За один проход по строкам таблицы
+ * считает итоги по категориям, по месяцам, матрицу категория × месяц с учётом
+ * фильтра категорий и итоги по месяцам без него для фактических значений бюджетов.
+ */
+@Service
+@RequiredArgsConstructor
+public class FinanceAggregationService {
+
+    private final FinanceRollupService financeRollupService;
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordDecryptor bulkRecordDecryptor;
+
+    @Transactional(readOnly = true)
+    public FinanceAggregation aggregate(RecordTable table, Long userId, FinanceFilter filter, List<Long> categoryIds) {
+        List<Long> normalizedIds = normalizeCategoryFilter(categoryIds);
+        Set<Long> categoryFilter = normalizedIds == null ? null : new HashSet<>(normalizedIds);
+
+        List<FinanceRow> rows = financeRollupService.findRows(table, userId, filter, null)
+                .orElseGet(() -> bulkRecordDecryptor.decrypt(financeRecordRowRepository.findByUserAndFilter(
+                        table,
+                        userId,
+                        filter,
+                        null,
+                        false)));
+
+        FinanceAggregation aggregation = new FinanceAggregation();
+        for (FinanceRow row : rows) {
+            aggregation.add(row, categoryFilter == null || categoryFilter.contains(row.categoryId()));
+        }
+        return aggregation;
+    }
+
+    /**
+     * Результат агрегации одной таблицы записей.
+     */
+    public static final class FinanceAggregation {
+
+        private final Map<LocalDate, BigDecimal> allTotalsByPeriod = new TreeMap<>();
+        private final Map<LocalDate, BigDecimal> totalsByPeriod = new TreeMap<>();
+        private final Map<Long, CategoryAggregation> categories = new LinkedHashMap<>();
+        private BigDecimal total = BigDecimal.ZERO;
+
+        private void add(FinanceRow row, boolean matchesCategoryFilter) {
+            BigDecimal amount = normalizeAmount(row.amount());
+            allTotalsByPeriod.merge(row.period(), amount, BigDecimal::add);
+            if (!matchesCategoryFilter) {
+                return;
+            }
+            total = total.add(amount);
+            totalsByPeriod.merge(row.period(), amount, BigDecimal::add);
+            categories.computeIfAbsent(row.categoryId(), id -> new CategoryAggregation(id, row.categoryName()))
+                    .addAmount(row.period(), amount);
+        }
+
+        /**
+         * Итоги по месяцам по всем категориям, независимо от фильтра категорий.
+         */
+        public Map<LocalDate, BigDecimal> getAllTotalsByPeriod() {
+            return allTotalsByPeriod;
+        }
+
+        public Map<LocalDate, BigDecimal> getTotalsByPeriod() {
+            return totalsByPeriod;
+        }
+
+        public Collection<CategoryAggregation> getCategories() {
+            return categories.values();
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Итоги одной категории: общий и по месяцам.
+     */
+    public static final class CategoryAggregation {
+
+        private final Long categoryId;
+        private final String categoryName;
+        private BigDecimal total = BigDecimal.ZERO;
+        private final Map<LocalDate, BigDecimal> monthlyTotals = new TreeMap<>();
+
+        CategoryAggregation(Long categoryId, String categoryName) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+        }
+
+        void addAmount(LocalDate period, BigDecimal amount) {
+            total = total.add(amount);
+            monthlyTotals.merge(period, amount, BigDecimal::add);
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public Map<LocalDate, BigDecimal> getMonthlyTotals() {
+            return monthlyTotals;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.traker.traker.service;
+
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.FinanceCategory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ограниченный по размеру LRU-кэш словаря категорий пользователя для одного типа записей.
+ * Словарь загружается одним запросом при первом обращении, поэтому пакетное создание и
+ * изменение записей проверяет категории в памяти, а не запросом на каждую запись.
+ * <p>
+ * Сервисы категорий сбрасывают словарь при каждом изменении; транзакция, изменившая
+ * категории, до своего завершения читает их мимо кэша. Поколения изменений ведутся
+ * по пользователю и типу записей, поэтому загрузка словаря отбрасывается только при
+ * параллельном изменении категорий того же пользователя.
+ */
+@Component
+public class FinanceCategoryCache {
+
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<CacheKey, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<CacheKey, Long> changedAt = new LinkedHashMap<>();
+    private long forgottenChangesUpTo;
+
+    public FinanceCategoryCache(FinanceRecordRowRepository financeRecordRowRepository,
+                                @Value("${app.finance.category-cache.max-size:10000}") int maxSize,
+                                @Value("${app.finance.category-cache.ttl:PT30M}") Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша категорий должен быть положительным");
+        }
+        this.financeRecordRowRepository = financeRecordRowRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = Clock.systemUTC();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Возвращает словарь категорий пользователя, при промахе загружая его из базы.
+     */
+    public CategoryDictionary get(RecordTable table, Long userId) {
+        CacheKey cacheKey = new CacheKey(userId, table);
+        if (TransactionSynchronizationManager.hasResource(new PendingEviction(this, cacheKey))) {
+            return load(cacheKey);
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(cacheKey);
+            if (entry != null && entry.expiresAt > clock.millis()) {
+                return entry.dictionary;
+            }
+        }
+        long loadedGeneration = generation.get();
+        CategoryDictionary dictionary = load(cacheKey);
+        synchronized (entries) {
+            if (lastChange(cacheKey) <= loadedGeneration) {
+                entries.put(cacheKey, new Entry(dictionary, clock.millis() + ttlMillis));
+                evictOverflow();
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Сбрасывает словарь пользователя сразу и ещё раз после завершения текущей транзакции.
+     */
+    public void evict(RecordTable table, Long userId) {
+        CacheKey cacheKey = new CacheKey(userId, table);
+        remove(cacheKey);
+        PendingEviction pending = new PendingEviction(this, cacheKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(pending)) {
+            TransactionSynchronizationManager.bindResource(pending, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pending);
+                    remove(cacheKey);
+                }
+            });
+        }
+    }
+
+    private CategoryDictionary load(CacheKey cacheKey) {
+        return new CategoryDictionary(financeRecordRowRepository.findCategoriesByUser(cacheKey.table(), cacheKey.userId()));
+    }
+
+    private void remove(CacheKey cacheKey) {
+        synchronized (entries) {
+            markChanged(cacheKey);
+            entries.remove(cacheKey);
+        }
+    }
+
+    /**
+     * Отмечает изменение ключа новым поколением; карта поколений ограничена размером кэша,
+     * а для вытесненных из неё ключей действует консервативная нижняя граница.
+     * Вызывается под блокировкой {@code entries}.
+     */
+    private void markChanged(CacheKey cacheKey) {
+        long tick = generation.incrementAndGet();
+        changedAt.remove(cacheKey);
+        changedAt.put(cacheKey, tick);
+        Iterator<Long> iterator = changedAt.values().iterator();
+        while (changedAt.size() > maxSize && iterator.hasNext()) {
+            forgottenChangesUpTo = Math.max(forgottenChangesUpTo, iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private long lastChange(CacheKey cacheKey) {
+        Long tick = changedAt.get(cacheKey);
+        return tick != null ? tick : forgottenChangesUpTo;
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Неизменяемый словарь категорий пользователя: по id и по имени без учёта регистра.
+     */
+    public static final class CategoryDictionary {
+        private final List<FinanceCategory> categories;
+        private final Map<Long, FinanceCategory> byId;
+        private final Map<String, FinanceCategory> byName;
+
+        private CategoryDictionary(List<FinanceCategory> categories) {
+            this.categories = List.copyOf(categories);
+            this.byId = categories.stream().collect(Collectors.toUnmodifiableMap(FinanceCategory::id, Function.identity()));
+            Map<String, FinanceCategory> names = new HashMap<>();
+            categories.forEach(category -> names.putIfAbsent(normalizeName(category.name()), category));
+            this.byName = Collections.unmodifiableMap(names);
+        }
+
+        public List<FinanceCategory> all() {
+            return categories;
+        }
+
+        public Optional<FinanceCategory> findById(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        public Optional<FinanceCategory> findByName(String name) {
+            return Optional.ofNullable(byName.get(normalizeName(name)));
+        }
+
+        public String nameOf(Long id) {
+            FinanceCategory category = byId.get(id);
+            return category == null ? null : category.name();
+        }
+
+        private static String normalizeName(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record CacheKey(Long userId, RecordTable table) {
+    }
+
+    private record Entry(CategoryDictionary dictionary, long expiresAt) {
+    }
+
+    private record PendingEviction(FinanceCategoryCache cache, CacheKey cacheKey) {
+    }
+}
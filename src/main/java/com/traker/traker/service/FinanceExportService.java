@@ -0,0 +1,182 @@
+package com.traker.traker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.security.crypto.BulkRecordDecryptor;
+import com.traker.traker.security.crypto.EncryptionContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.buildFilter;
+import static com.traker.traker.utils.FinanceUtils.formatPeriod;
+import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+import static com.traker.traker.utils.FinanceUtils.normalizeCategoryFilter;
+
+/**
+ * Потоковая выгрузка трат и доходов в NDJSON или CSV. Строки читаются курсором
+ * порциями по fetch size, расшифровываются и записываются по одной, поэтому
+ * потребление памяти не зависит от объёма истории пользователя.
+ */
+@Service
+public class FinanceExportService {
+
+    private static final String CSV_HEADER = "id,date,period,categoryId,category,title,description,amount";
+
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordDecryptor bulkRecordDecryptor;
+    private final CurrentUserProvider currentUserProvider;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushEvery;
+
+    public FinanceExportService(FinanceRecordRowRepository financeRecordRowRepository,
+                                BulkRecordDecryptor bulkRecordDecryptor,
+                                CurrentUserProvider currentUserProvider,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.finance.export.flush-every:500}") int flushEvery) {
+        this.financeRecordRowRepository = financeRecordRowRepository;
+        this.bulkRecordDecryptor = bulkRecordDecryptor;
+        this.currentUserProvider = currentUserProvider;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Готовит потоковую выгрузку. Фильтр, пользователь и ключ определяются в потоке
+     * запроса, так как тело ответа пишется уже в другом потоке.
+     *
+     * @param toDto преобразование строки в DTO для формата NDJSON
+     */
+    public StreamingResponseBody export(RecordTable table,
+                                        String fromDate,
+                                        String toDate,
+                                        String month,
+                                        List<Long> categoryIds,
+                                        ExportFormat format,
+                                        Function<FinanceRow, ?> toDto) {
+        FinanceFilter filter = buildFilter(fromDate, toDate, month);
+        User currentUser = currentUserProvider.getCurrentUser();
+        List<Long> categoryFilter = normalizeCategoryFilter(categoryIds);
+        byte[] requestKey = EncryptionContextHolder.requireKey();
+        byte[] key = Arrays.copyOf(requestKey, requestKey.length);
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            try {
+                if (format == ExportFormat.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                int[] written = {0};
+                transactionTemplate.executeWithoutResult(status -> financeRecordRowRepository.forEachByUserAndFilter(
+                        table,
+                        currentUser.getId(),
+                        filter,
+                        categoryFilter,
+                        encrypted -> {
+                            FinanceRow row = bulkRecordDecryptor.decryptRow(key, encrypted);
+                            try {
+                                writeRow(writer, row, format, toDto);
+                                if (++written[0] % flushEvery == 0) {
+                                    writer.flush();
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        };
+    }
+
+    private void writeRow(Writer writer, FinanceRow row, ExportFormat format, Function<FinanceRow, ?> toDto) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(toDto.apply(row)));
+        } else {
+            writer.write(String.join(",",
+                    String.valueOf(row.id()),
+                    row.recordDate() == null ? "" : row.recordDate().toString(),
+                    formatPeriod(row.period()),
+                    String.valueOf(row.categoryId()),
+                    csvText(row.categoryName()),
+                    csvText(row.title()),
+                    csvText(row.description()),
+                    normalizeAmount(row.amount()).toPlainString()));
+        }
+        writer.write('\n');
+    }
+
+    private String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = value;
+        // Защита от выполнения формул при открытии выгрузки в табличном редакторе
+        if ("=+-@".indexOf(safe.charAt(0)) >= 0) {
+            safe = "'" + safe;
+        }
+        if (safe.contains(",") || safe.contains("\"") || safe.contains("\n") || safe.contains("\r")) {
+            safe = "\"" + safe.replace("\"", "\"\"") + "\"";
+        }
+        return safe;
+    }
+
+    public enum ExportFormat {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        ExportFormat(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat from(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: " + value, e);
+            }
+        }
+    }
+}
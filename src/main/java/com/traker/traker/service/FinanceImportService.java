@@ -0,0 +1,307 @@
+package com.traker.traker.service;
+
+import com.traker.traker.dto.common.ImportResultDto;
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.security.crypto.BulkRecordEncryptor;
+import com.traker.traker.security.crypto.EncryptionContextHolder;
+import com.traker.traker.utils.statement.CsvStatementReader;
+import com.traker.traker.utils.statement.OfxStatementReader;
+import com.traker.traker.utils.statement.StatementReader;
+import com.traker.traker.utils.statement.StatementRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+import static com.traker.traker.utils.FinanceUtils.parsePeriod;
+
+/**
+ * Импорт трат и доходов из банковских выписок CSV и OFX. Файл читается потоково,
+ * строки проверяются по одной, а сохраняются порциями: каждая порция шифруется
+ * параллельно, вставляется одним JDBC-батчем в отдельной транзакции и сразу
+ * учитывается в агрегатах. Ошибка в порции не отменяет уже сохранённые порции.
+ */
+@Slf4j
+@Service
+public class FinanceImportService {
+
+    private static final String DEFAULT_CATEGORY = "Импорт";
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.BASIC_ISO_DATE);
+
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordEncryptor bulkRecordEncryptor;
+    private final FinanceRollupService financeRollupService;
+    private final CurrentUserProvider currentUserProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate categoryTransactionTemplate;
+    private final int chunkSize;
+
+    public FinanceImportService(FinanceRecordRowRepository financeRecordRowRepository,
+                                BulkRecordEncryptor bulkRecordEncryptor,
+                                FinanceRollupService financeRollupService,
+                                CurrentUserProvider currentUserProvider,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.finance.import.chunk-size:1000}") int chunkSize) {
+        this.financeRecordRowRepository = financeRecordRowRepository;
+        this.bulkRecordEncryptor = bulkRecordEncryptor;
+        this.financeRollupService = financeRollupService;
+        this.currentUserProvider = currentUserProvider;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Категории создаются в собственных транзакциях, чтобы откат порции не оставил в карте несуществующий id
+        this.categoryTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Импортирует выписку текущего пользователя.
+     *
+     * @param categories      категории пользователя по имени в нижнем регистре; дополняется созданными категориями
+     * @param categoryFactory находит категорию по имени без учёта регистра или создаёт её, возвращая id
+     */
+    public ImportResultDto importStatement(RecordTable table,
+                                           MultipartFile file,
+                                           String format,
+                                           String defaultCategory,
+                                           Map<String, Long> categories,
+                                           Function<String, Long> categoryFactory) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Файл выписки пуст");
+        }
+        ImportFormat importFormat = ImportFormat.from(format, file.getOriginalFilename());
+        User currentUser = currentUserProvider.getCurrentUser();
+        byte[] key = EncryptionContextHolder.requireKey();
+
+        ImportContext context = new ImportContext(table, importFormat, categories, categoryFactory,
+                defaultCategory == null || defaultCategory.isBlank() ? DEFAULT_CATEGORY : defaultCategory.trim());
+        try (StatementReader reader = openReader(file, importFormat)) {
+            while (true) {
+                StatementRow row;
+                try {
+                    row = reader.next();
+                } catch (IllegalArgumentException e) {
+                    // Дальше файл разобрать невозможно: сохраняем то, что уже прочитано
+                    context.fail(0, e.getMessage());
+                    break;
+                }
+                if (row == null) {
+                    break;
+                }
+                context.result.setProcessed(context.result.getProcessed() + 1);
+                try {
+                    FinanceRow parsed = parseRow(row, context);
+                    if (parsed == null) {
+                        context.result.setSkipped(context.result.getSkipped() + 1);
+                        continue;
+                    }
+                    context.pending.add(new PendingRow(row.line(), parsed));
+                } catch (IllegalArgumentException e) {
+                    context.fail(row.line(), e.getMessage());
+                }
+                if (context.pending.size() >= chunkSize) {
+                    flush(context, currentUser, key);
+                }
+            }
+            flush(context, currentUser, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл выписки", e);
+        }
+
+        log.info("Импорт выписки ({}, {}) пользователя {} завершён: обработано {}, сохранено {}, пропущено {}, ошибок {}",
+                table, importFormat, currentUser.getId(), context.result.getProcessed(), context.result.getImported(),
+                context.result.getSkipped(), context.result.getFailed());
+        return context.result;
+    }
+
+    private StatementReader openReader(MultipartFile file, ImportFormat format) throws IOException {
+        InputStreamReader input = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8);
+        return format == ImportFormat.OFX ? new OfxStatementReader(input) : new CsvStatementReader(input);
+    }
+
+    private void flush(ImportContext context, User user, byte[] key) {
+        List<PendingRow> chunk = context.pending;
+        if (chunk.isEmpty()) {
+            return;
+        }
+        context.pending = new ArrayList<>(chunkSize);
+        try {
+            List<EncryptedFinanceRow> encrypted = bulkRecordEncryptor.encrypt(key,
+                    chunk.stream().map(PendingRow::row).toList());
+            transactionTemplate.executeWithoutResult(status -> {
+                financeRecordRowRepository.insertAll(context.table, user.getId(), encrypted);
+                FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+                chunk.forEach(pending -> delta.add(pending.row().categoryId(), pending.row().period(), pending.row().amount()));
+                financeRollupService.apply(context.table, user.getId(), delta);
+            });
+            context.result.setImported(context.result.getImported() + chunk.size());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить порцию импорта пользователя {} ({} строк): {}",
+                    user.getId(), chunk.size(), e.getMessage());
+            chunk.forEach(pending -> context.fail(pending.line(), "Не удалось сохранить строку"));
+        }
+        log.info("Импорт пользователя {}: обработано {}, сохранено {}", user.getId(),
+                context.result.getProcessed(), context.result.getImported());
+    }
+
+    /**
+     * Проверяет строку выписки. Возвращает {@code null}, если операция не относится к импортируемому типу.
+     */
+    private FinanceRow parseRow(StatementRow row, ImportContext context) {
+        if (row.title() == null || row.title().isBlank()) {
+            throw new IllegalArgumentException("Не указано название");
+        }
+        BigDecimal amount = parseAmount(row.amount());
+        if (context.format == ImportFormat.OFX) {
+            // В OFX списания отрицательные, поступления положительные
+            boolean expense = amount.signum() < 0;
+            if (expense != (context.table == RecordTable.EXPENSE)) {
+                return null;
+            }
+        }
+        amount = normalizeAmount(amount.abs());
+        if (amount.signum() == 0) {
+            throw new IllegalArgumentException("Сумма должна быть больше нуля");
+        }
+
+        LocalDate recordDate = parseDate(row.date());
+        YearMonth period;
+        if (recordDate != null) {
+            period = YearMonth.from(recordDate);
+        } else if (row.period() != null) {
+            period = parsePeriod(row.period());
+        } else {
+            throw new IllegalArgumentException("Необходимо указать дату или месяц");
+        }
+
+        String categoryName = row.category() != null ? row.category() : context.defaultCategory;
+        String description = row.description() == null || row.description().isBlank() ? null : row.description().trim();
+        return new FinanceRow(
+                null,
+                resolveCategory(context, categoryName),
+                null,
+                row.title().trim(),
+                description,
+                amount,
+                period.atDay(1),
+                recordDate);
+    }
+
+    private Long resolveCategory(ImportContext context, String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        Long categoryId = context.categories.get(normalized);
+        if (categoryId == null) {
+            try {
+                categoryId = categoryTransactionTemplate.execute(status -> context.categoryFactory.apply(name.trim()));
+            } catch (RuntimeException e) {
+                // Например, параллельный импорт создал ту же категорию: ошибка относится только к этой строке
+                log.warn("Не удалось создать категорию импорта «{}»: {}", name.trim(), e.getMessage());
+                throw new IllegalArgumentException("Не удалось создать категорию: " + name.trim());
+            }
+            context.categories.put(normalized, categoryId);
+        }
+        return categoryId;
+    }
+
+    private BigDecimal parseAmount(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Не указана сумма");
+        }
+        String normalized = value.replace(" ", "").replace("\u00A0", "").replace(',', '.');
+        try {
+            return new BigDecimal(normalized);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная сумма: " + value);
+        }
+    }
+
+    private LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (DateTimeFormatter formatter : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value.trim(), formatter);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        throw new IllegalArgumentException("Некорректная дата: " + value);
+    }
+
+    public enum ImportFormat {
+        CSV,
+        OFX;
+
+        /**
+         * Определяет формат по явному параметру, а если он не задан — по расширению файла.
+         */
+        public static ImportFormat from(String value, String filename) {
+            if (value != null && !value.isBlank()) {
+                try {
+                    return valueOf(value.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Неподдерживаемый формат выписки: " + value, e);
+                }
+            }
+            String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+            return name.endsWith(".ofx") || name.endsWith(".qfx") ? OFX : CSV;
+        }
+    }
+
+    private record PendingRow(long line, FinanceRow row) {
+    }
+
+    private final class ImportContext {
+        private final RecordTable table;
+        private final ImportFormat format;
+        private final Map<String, Long> categories;
+        private final Function<String, Long> categoryFactory;
+        private final String defaultCategory;
+        private final ImportResultDto result = new ImportResultDto();
+        private List<PendingRow> pending = new ArrayList<>(chunkSize);
+
+        private ImportContext(RecordTable table, ImportFormat format, Map<String, Long> categories,
+                              Function<String, Long> categoryFactory, String defaultCategory) {
+            this.table = table;
+            this.format = format;
+            this.categories = categories;
+            this.categoryFactory = categoryFactory;
+            this.defaultCategory = defaultCategory;
+        }
+
+        private void fail(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new ImportResultDto.RowErrorDto(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.traker.traker.service;
+
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.FinanceRollupRepository;
+import com.traker.traker.repository.UserRepository;
+import com.traker.traker.security.UserEncryptionService;
+import com.traker.traker.security.crypto.EncryptionContextHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Фоновое построение агрегатов {@code finance_rollup}: часто достраивает
+ * агрегаты пользователей, для которых они ещё не существуют, и раз в сутки
+ * пересчитывает все агрегаты, устраняя возможное расхождение с записями.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FinanceRollupRebuildJob {
+
+    private final FinanceRollupService financeRollupService;
+    private final FinanceRollupRepository financeRollupRepository;
+    private final UserRepository userRepository;
+    private final UserEncryptionService userEncryptionService;
+
+    @Value("${app.finance.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(initialDelayString = "${app.finance.rollup.initial-delay:PT1M}",
+            fixedDelayString = "${app.finance.rollup.pending-delay:PT5M}")
+    public void buildMissing() {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> userIds = new TreeSet<>();
+        for (RecordTable table : RecordTable.values()) {
+            userIds.addAll(financeRollupRepository.findUserIdsWithoutRollup(table));
+        }
+        rebuildUsers(userIds);
+    }
+
+    @Scheduled(cron = "${app.finance.rollup.repair-cron:0 30 3 * * *}")
+    public void repairAll() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> userIds = userRepository.findAll().stream()
+                .map(User::getId)
+                .toList();
+        rebuildUsers(userIds);
+        log.info("Агрегаты финансов пересчитаны для {} пользователей", userIds.size());
+    }
+
+    private void rebuildUsers(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            try {
+                userRepository.findById(userId).ifPresent(this::rebuildUser);
+            } catch (RuntimeException e) {
+                // Ошибка одного пользователя не должна останавливать пересчёт остальных
+                log.warn("Не удалось перестроить агрегаты пользователя {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private void rebuildUser(User user) {
+        userEncryptionService.ensureUserKey(user);
+        EncryptionContextHolder.setKey(user.getDecryptedDataKey());
+        try {
+            for (RecordTable table : RecordTable.values()) {
+                financeRollupService.rebuild(table, user.getId());
+            }
+        } finally {
+            EncryptionContextHolder.clear();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.traker.traker.service;
+
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.FinanceRollupRepository;
+import com.traker.traker.repository.FinanceRollupRepository.RollupEntry;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.crypto.BulkRecordDecryptor;
+import com.traker.traker.security.crypto.DataEncryptionService;
+import com.traker.traker.security.crypto.EncryptionContextHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+
+/**
+ * Сервис агрегатов трат и доходов по категориям и месяцам. Суммы хранятся
+ * зашифрованными ключом пользователя и обновляются в той же транзакции, что и
+ * сами записи, поэтому сводки расшифровывают десятки агрегатов вместо всех записей.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FinanceRollupService {
+
+    private final FinanceRollupRepository financeRollupRepository;
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordDecryptor bulkRecordDecryptor;
+    private final DataEncryptionService dataEncryptionService;
+    private final FinanceAggregateCache financeAggregateCache;
+
+    /**
+     * Возвращает суммы по категориям и месяцам из кэша или агрегатов либо пустой
+     * результат, если агрегаты ещё не построены или фильтр режет месяц по датам и
+     * требует построчной выборки. При промахе кэша загружаются все агрегаты пользователя.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<FinanceRow>> findRows(RecordTable table, Long userId, FinanceFilter filter, List<Long> categoryIds) {
+        if (!coversWholeMonths(filter)) {
+            return Optional.empty();
+        }
+        Optional<List<FinanceRow>> cached = financeAggregateCache.find(
+                table, userId, filter.fromPeriod(), filter.toPeriod(), categoryIds);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        long generation = financeAggregateCache.currentGeneration();
+        if (!financeRollupRepository.isReady(table, userId)) {
+            return Optional.empty();
+        }
+        List<FinanceRow> all = bulkRecordDecryptor.decrypt(
+                financeRollupRepository.findByUserAndPeriods(table, userId, null, null, null));
+        financeAggregateCache.put(table, userId, all, generation);
+        return Optional.of(filterRows(all, filter, categoryIds));
+    }
+
+    /**
+     * Применяет изменения сумм к агрегатам пользователя. Вызывается внутри
+     * транзакции, изменяющей записи.
+     */
+    @Transactional
+    public void apply(RecordTable table, Long userId, Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        financeRollupRepository.lock(table, userId);
+        long writeGeneration = financeAggregateCache.beginWrite(table, userId);
+        afterCommit(() -> financeAggregateCache.applyDelta(table, userId, delta, writeGeneration));
+        if (!financeRollupRepository.isReady(table, userId)) {
+            // Агрегаты будут построены целиком фоновой задачей
+            return;
+        }
+
+        byte[] key = EncryptionContextHolder.requireKey();
+        for (Map.Entry<RollupKey, Change> entry : delta.changes().entrySet()) {
+            RollupKey rollupKey = entry.getKey();
+            Change change = entry.getValue();
+            Optional<RollupEntry> existing = financeRollupRepository.findForUpdate(
+                    table, userId, rollupKey.categoryId(), rollupKey.period());
+
+            if (existing.isPresent()) {
+                RollupEntry current = existing.get();
+                int count = current.count() + change.count();
+                if (count <= 0) {
+                    financeRollupRepository.delete(current.id());
+                } else {
+                    BigDecimal total = decryptAmount(key, current.total()).add(change.amount());
+                    financeRollupRepository.update(current.id(), encryptAmount(key, total), count);
+                }
+            } else if (change.count() > 0) {
+                financeRollupRepository.insert(table, userId, rollupKey.categoryId(), rollupKey.period(),
+                        encryptAmount(key, change.amount()), change.count());
+            }
+        }
+    }
+
+    /**
+     * Полностью пересчитывает агрегаты пользователя по его записям. Ключ
+     * пользователя должен быть установлен в {@link EncryptionContextHolder}.
+     */
+    @Transactional
+    public void rebuild(RecordTable table, Long userId) {
+        financeRollupRepository.lock(table, userId);
+        financeAggregateCache.evict(table, userId);
+        afterCommit(() -> financeAggregateCache.evict(table, userId));
+        byte[] key = EncryptionContextHolder.requireKey();
+
+        List<FinanceRow> rows = bulkRecordDecryptor.decrypt(financeRecordRowRepository.findByUserAndFilter(
+                table,
+                userId,
+                new FinanceFilter(null, null, null, null, null),
+                null,
+                false));
+
+        Delta totals = new Delta();
+        rows.forEach(row -> totals.add(row.categoryId(), row.period(), row.amount()));
+
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        totals.changes().forEach((rollupKey, change) -> inserts.add(financeRollupRepository.insertParams(
+                table,
+                userId,
+                rollupKey.categoryId(),
+                rollupKey.period(),
+                encryptAmount(key, change.amount()),
+                change.count())));
+
+        financeRollupRepository.deleteAll(table, userId);
+        financeRollupRepository.insertAll(inserts);
+        financeRollupRepository.markRebuilt(table, userId);
+        log.debug("Агрегаты {} пользователя {} перестроены: {} строк", table, userId, inserts.size());
+    }
+
+    /**
+     * Сбрасывает закэшированные агрегаты пользователя, например после переименования категории.
+     */
+    public void evictCache(RecordTable table, Long userId) {
+        financeAggregateCache.evict(table, userId);
+    }
+
+    public FinanceAggregateCache.Stats getCacheStats() {
+        return financeAggregateCache.stats();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private List<FinanceRow> filterRows(List<FinanceRow> rows, FinanceFilter filter, List<Long> categoryIds) {
+        return rows.stream()
+                .filter(row -> filter.fromPeriod() == null || !row.period().isBefore(filter.fromPeriod()))
+                .filter(row -> filter.toPeriod() == null || !row.period().isAfter(filter.toPeriod()))
+                .filter(row -> categoryIds == null || categoryIds.contains(row.categoryId()))
+                .toList();
+    }
+
+    private boolean coversWholeMonths(FinanceFilter filter) {
+        boolean fromAligned = filter.fromDate() == null || filter.fromDate().getDayOfMonth() == 1;
+        boolean toAligned = filter.toDate() == null
+                || filter.toDate().getDayOfMonth() == filter.toDate().lengthOfMonth();
+        return fromAligned && toAligned;
+    }
+
+    private byte[] encryptAmount(byte[] key, BigDecimal amount) {
+        byte[] plain = normalizeAmount(amount).toPlainString().getBytes(StandardCharsets.US_ASCII);
+        return dataEncryptionService.encryptToBinary(key, plain);
+    }
+
+    private BigDecimal decryptAmount(byte[] key, byte[] stored) {
+        byte[] plain = dataEncryptionService.decryptFromBinary(key, stored);
+        return new BigDecimal(new String(plain, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Накопитель изменений агрегатов в рамках одной операции над записями.
+     */
+    public static final class Delta {
+
+        private final Map<RollupKey, Change> changes = new LinkedHashMap<>();
+
+        public void add(Long categoryId, LocalDate period, BigDecimal amount) {
+            merge(new RollupKey(categoryId, period), normalizeAmount(amount), 1);
+        }
+
+        public void remove(Long categoryId, LocalDate period, BigDecimal amount) {
+            merge(new RollupKey(categoryId, period), normalizeAmount(amount).negate(), -1);
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        Map<RollupKey, Change> changes() {
+            return changes;
+        }
+
+        private void merge(RollupKey rollupKey, BigDecimal amount, int count) {
+            Change merged = changes.merge(rollupKey, new Change(amount, count), Change::plus);
+            if (merged.count() == 0 && merged.amount().signum() == 0) {
+                changes.remove(rollupKey);
+            }
+        }
+    }
+
+    record RollupKey(Long categoryId, LocalDate period) {
+    }
+
+    record Change(BigDecimal amount, int count) {
+
+        Change plus(Change other) {
+            return new Change(amount.add(other.amount), count + other.count);
+        }
+    }
+}
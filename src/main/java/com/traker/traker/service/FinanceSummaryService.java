@@ -4,13 +4,20 @@ import com.traker.traker.dto.budget.BudgetResponseDto;
 import com.traker.traker.dto.budget.FinanceDashboardDto;
 import com.traker.traker.dto.expense.ExpenseSummaryDto;
 import com.traker.traker.dto.income.IncomeSummaryDto;
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.service.FinanceAggregationService.FinanceAggregation;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Objects;
 
+import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.buildFilter;
 import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
 
 @Service
@@ -20,13 +27,25 @@ public class FinanceSummaryService {
     private final ExpenseRecordService expenseRecordService;
     private final IncomeRecordService incomeRecordService;
     private final BudgetService budgetService;
+    private final FinanceAggregationService financeAggregationService;
+    private final CurrentUserProvider currentUserProvider;
 
+    @Transactional(readOnly = true)
     public FinanceDashboardDto getDashboard(String fromDate, String toDate, String month,
                                             List<Long> expenseCategoryIds,
                                             List<Long> incomeCategoryIds) {
-        ExpenseSummaryDto expenseSummary = expenseRecordService.getSummary(fromDate, toDate, month, expenseCategoryIds);
-        IncomeSummaryDto incomeSummary = incomeRecordService.getSummary(fromDate, toDate, month, incomeCategoryIds);
-        List<BudgetResponseDto> budgets = budgetService.getBudgets(fromDate, toDate, month);
+        FinanceFilter filter = buildFilter(fromDate, toDate, month);
+        User user = currentUserProvider.getCurrentUser();
+
+        // Каждая таблица записей сканируется один раз: сводки и бюджеты строятся из общих агрегаций
+        FinanceAggregation expenses = financeAggregationService.aggregate(
+                RecordTable.EXPENSE, user.getId(), filter, expenseCategoryIds);
+        FinanceAggregation incomes = financeAggregationService.aggregate(
+                RecordTable.INCOME, user.getId(), filter, incomeCategoryIds);
+
+        ExpenseSummaryDto expenseSummary = expenseRecordService.buildSummary(expenses);
+        IncomeSummaryDto incomeSummary = incomeRecordService.buildSummary(incomes);
+        List<BudgetResponseDto> budgets = budgetService.buildBudgets(user, filter, expenses, incomes);
 
         FinanceDashboardDto dashboard = new FinanceDashboardDto();
         dashboard.setExpenseSummary(expenseSummary);
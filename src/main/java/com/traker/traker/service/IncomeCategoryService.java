@@ -6,12 +6,11 @@ import com.traker.traker.entity.User;
 import com.traker.traker.exception.CategoryInUseException;
 import com.traker.traker.exception.IncomeCategoryNotFoundException;
 import com.traker.traker.mapper.IncomeCategoryMapper;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
 import com.traker.traker.repository.IncomeCategoryRepository;
 import com.traker.traker.repository.IncomeRecordRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,46 +23,52 @@ public class IncomeCategoryService {
     private final IncomeCategoryRepository incomeCategoryRepository;
     private final IncomeRecordRepository incomeRecordRepository;
     private final IncomeCategoryMapper incomeCategoryMapper;
-    private final UserRepository userRepository;
+    private final FinanceRollupService financeRollupService;
+    private final FinanceCategoryCache financeCategoryCache;
+    private final CurrentUserProvider currentUserProvider;
 
     public IncomeCategoryDto createCategory(IncomeCategoryDto dto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         validateUniqueName(dto.getName(), null, currentUser);
         IncomeCategory category = incomeCategoryMapper.toEntity(dto);
         category.setUser(currentUser);
         IncomeCategory saved = incomeCategoryRepository.save(category);
+        financeCategoryCache.evict(RecordTable.INCOME, currentUser.getId());
         return incomeCategoryMapper.toDto(saved);
     }
 
     public IncomeCategoryDto updateCategory(Long id, IncomeCategoryDto dto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         IncomeCategory existing = incomeCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new IncomeCategoryNotFoundException(id));
         validateUniqueName(dto.getName(), id, currentUser);
         incomeCategoryMapper.updateEntityFromDto(dto, existing);
         IncomeCategory saved = incomeCategoryRepository.save(existing);
+        financeRollupService.evictCache(RecordTable.INCOME, currentUser.getId());
+        financeCategoryCache.evict(RecordTable.INCOME, currentUser.getId());
         return incomeCategoryMapper.toDto(saved);
     }
 
     public List<IncomeCategoryDto> getCategories() {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         return incomeCategoryRepository.findByUser(currentUser).stream()
                 .map(incomeCategoryMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     public void deleteCategory(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         IncomeCategory category = incomeCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new IncomeCategoryNotFoundException(id));
         if (incomeRecordRepository.existsByUserAndCategory_Id(currentUser, id)) {
             throw new CategoryInUseException("Нельзя удалить категорию с привязанными доходами. Перенесите или удалите записи.");
         }
         incomeCategoryRepository.delete(category);
+        financeCategoryCache.evict(RecordTable.INCOME, currentUser.getId());
     }
 
     public IncomeCategory getCategory(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         return incomeCategoryRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new IncomeCategoryNotFoundException(id));
     }
@@ -79,11 +84,4 @@ public class IncomeCategoryService {
                     }
                 });
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
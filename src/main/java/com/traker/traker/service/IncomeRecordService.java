@@ -1,5 +1,9 @@
 package com.traker.traker.service;
 
+import com.traker.traker.dto.common.BulkCategoryRequestDto;
+import com.traker.traker.dto.common.BulkOperationResultDto;
+import com.traker.traker.dto.common.CursorPageDto;
+import com.traker.traker.dto.common.ImportResultDto;
 import com.traker.traker.dto.income.IncomeBatchCreateRequestDto;
 import com.traker.traker.dto.income.IncomeBatchUpdateRequestDto;
 import com.traker.traker.dto.income.IncomeRecordRequestDto;
@@ -12,34 +16,51 @@ import com.traker.traker.entity.User;
 import com.traker.traker.exception.IncomeCategoryNotFoundException;
 import com.traker.traker.exception.IncomeRecordNotFoundException;
 import com.traker.traker.mapper.IncomeRecordMapper;
+import com.traker.traker.repository.FinanceRecordRowRepository;
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
 import com.traker.traker.repository.IncomeCategoryRepository;
 import com.traker.traker.repository.IncomeRecordRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import com.traker.traker.repository.projection.FinanceCategory;
+import com.traker.traker.repository.projection.FinanceRow;
+import com.traker.traker.security.CurrentUserProvider;
+import com.traker.traker.security.crypto.BulkRecordDecryptor;
+import com.traker.traker.service.FinanceAggregationService.CategoryAggregation;
+import com.traker.traker.service.FinanceAggregationService.FinanceAggregation;
+import com.traker.traker.service.FinanceExportService.ExportFormat;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.traker.traker.utils.FinanceUtils.FinanceFilter;
+import static com.traker.traker.utils.FinanceUtils.RecordCursor;
 import static com.traker.traker.utils.FinanceUtils.buildFilter;
+import static com.traker.traker.utils.FinanceUtils.decodeCursor;
+import static com.traker.traker.utils.FinanceUtils.encodeCursor;
 import static com.traker.traker.utils.FinanceUtils.formatPeriod;
 import static com.traker.traker.utils.FinanceUtils.normalizeAmount;
+import static com.traker.traker.utils.FinanceUtils.normalizeCategoryFilter;
 import static com.traker.traker.utils.FinanceUtils.parseOptionalPeriod;
 import static com.traker.traker.utils.FinanceUtils.parsePeriod;
+import static com.traker.traker.utils.FinanceUtils.resolvePageSize;
 
 @Service
 @RequiredArgsConstructor
@@ -48,11 +69,18 @@ public class IncomeRecordService {
     private final IncomeRecordRepository incomeRecordRepository;
     private final IncomeCategoryRepository incomeCategoryRepository;
     private final IncomeRecordMapper incomeRecordMapper;
-    private final UserRepository userRepository;
+    private final FinanceRecordRowRepository financeRecordRowRepository;
+    private final BulkRecordDecryptor bulkRecordDecryptor;
+    private final FinanceRollupService financeRollupService;
+    private final FinanceAggregationService financeAggregationService;
+    private final FinanceExportService financeExportService;
+    private final FinanceImportService financeImportService;
+    private final FinanceCategoryCache financeCategoryCache;
+    private final CurrentUserProvider currentUserProvider;
 
     @Transactional
     public List<IncomeRecordResponseDto> createBatch(IncomeBatchCreateRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         YearMonth defaultPeriod = parseOptionalPeriod(request.getDefaultPeriod());
 
         List<IncomeRecord> records = request.getIncomes().stream()
@@ -60,23 +88,31 @@ public class IncomeRecordService {
                 .collect(Collectors.toList());
 
         List<IncomeRecord> saved = incomeRecordRepository.saveAll(records);
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        saved.forEach(record -> addToRollup(delta, record));
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
         return incomeRecordMapper.toDtoList(saved);
     }
 
     @Transactional
     public IncomeRecordResponseDto updateIncome(Long id, IncomeRecordRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         IncomeRecord record = incomeRecordRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new IncomeRecordNotFoundException(id));
 
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        removeFromRollup(delta, record);
         applyFullUpdate(record, request, currentUser);
         IncomeRecord saved = incomeRecordRepository.save(record);
+        addToRollup(delta, saved);
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
         return incomeRecordMapper.toDto(saved);
     }
 
     @Transactional
     public List<IncomeRecordResponseDto> updateIncomes(IncomeBatchUpdateRequestDto request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         List<IncomeRecordUpdateDto> updates = request.getRecords();
         if (updates == null || updates.isEmpty()) {
             return List.of();
@@ -89,15 +125,19 @@ public class IncomeRecordService {
         Map<Long, IncomeRecord> existing = incomeRecordRepository.findByUserAndIdIn(currentUser, new ArrayList<>(ids)).stream()
                 .collect(Collectors.toMap(IncomeRecord::getId, Function.identity()));
 
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
         for (IncomeRecordUpdateDto updateDto : updates) {
             IncomeRecord record = existing.get(updateDto.getId());
             if (record == null) {
                 throw new IncomeRecordNotFoundException(updateDto.getId());
             }
+            removeFromRollup(delta, record);
             applyPartialUpdate(record, updateDto, currentUser);
+            addToRollup(delta, record);
         }
 
         incomeRecordRepository.saveAll(existing.values());
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
         return updates.stream()
                 .map(update -> incomeRecordMapper.toDto(existing.get(update.getId())))
                 .collect(Collectors.toList());
@@ -105,95 +145,140 @@ public class IncomeRecordService {
 
     @Transactional
     public void deleteIncome(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         IncomeRecord record = incomeRecordRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new IncomeRecordNotFoundException(id));
         incomeRecordRepository.delete(record);
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        removeFromRollup(delta, record);
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
     }
 
+    /**
+     * Удаляет записи одним запросом без загрузки сущностей. Расшифровываются только
+     * суммы удалённых строк для корректировки агрегатов; чужие и несуществующие id пропускаются.
+     */
     @Transactional
-    public void deleteIncomes(List<Long> ids) {
+    public BulkOperationResultDto deleteIncomes(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
-            return;
-        }
-        User currentUser = getCurrentUser();
-        List<IncomeRecord> records = incomeRecordRepository.findByUserAndIdIn(currentUser, ids);
-        long requested = ids.stream().distinct().count();
-        if (records.size() != requested) {
-            Set<Long> foundIds = records.stream().map(IncomeRecord::getId).collect(Collectors.toSet());
-            Long missing = ids.stream().filter(id -> !foundIds.contains(id)).findFirst().orElse(null);
-            throw new IncomeRecordNotFoundException(missing);
+            return new BulkOperationResultDto(0);
         }
-        incomeRecordRepository.deleteAll(records);
+        User currentUser = currentUserProvider.getCurrentUser();
+        List<FinanceRow> deleted = bulkRecordDecryptor.decrypt(
+                financeRecordRowRepository.deleteByUserAndIds(RecordTable.INCOME, currentUser.getId(), ids));
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        deleted.forEach(row -> delta.remove(row.categoryId(), row.period(), row.amount()));
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
+        return new BulkOperationResultDto(deleted.size());
+    }
+
+    /**
+     * Переносит записи в другую категорию одним запросом без загрузки и перешифрования сущностей.
+     */
+    @Transactional
+    public BulkOperationResultDto updateIncomeCategory(BulkCategoryRequestDto request) {
+        User currentUser = currentUserProvider.getCurrentUser();
+        IncomeCategory category = findCategory(request.getCategoryId(), currentUser);
+        List<FinanceRow> moved = bulkRecordDecryptor.decrypt(financeRecordRowRepository.updateCategoryByUserAndIds(
+                RecordTable.INCOME, currentUser.getId(), request.getIds(), category.getId()));
+
+        FinanceRollupService.Delta delta = new FinanceRollupService.Delta();
+        moved.forEach(row -> {
+            delta.remove(row.categoryId(), row.period(), row.amount());
+            delta.add(category.getId(), row.period(), row.amount());
+        });
+        financeRollupService.apply(RecordTable.INCOME, currentUser.getId(), delta);
+        return new BulkOperationResultDto(moved.size());
     }
 
     @Transactional(readOnly = true)
     public List<IncomeRecordResponseDto> getIncomes(String fromDate, String toDate, String month, List<Long> categoryIds) {
         FinanceFilter filter = buildFilter(fromDate, toDate, month);
-        User currentUser = getCurrentUser();
-        List<IncomeRecord> records = incomeRecordRepository.findByUserAndFilter(
-                currentUser,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                normalizeCategoryFilter(categoryIds));
-        return incomeRecordMapper.toDtoList(records);
+        User currentUser = currentUserProvider.getCurrentUser();
+        List<FinanceRow> rows = loadRows(currentUser, filter, categoryIds, true);
+        return incomeRecordMapper.toDtoListFromRows(rows);
     }
 
+    /**
+     * Возвращает страницу записей, начиная с позиции из курсора предыдущей страницы.
+     */
     @Transactional(readOnly = true)
-    public IncomeSummaryDto getSummary(String fromDate, String toDate, String month, List<Long> categoryIds) {
+    public CursorPageDto<IncomeRecordResponseDto> getIncomePage(String fromDate, String toDate, String month,
+                                                                List<Long> categoryIds, String cursor, Integer size) {
         FinanceFilter filter = buildFilter(fromDate, toDate, month);
-        User currentUser = getCurrentUser();
-
-        List<IncomeRecord> records = incomeRecordRepository.findByUserAndFilter(
-                currentUser,
-                filter.fromDate(),
-                filter.toDate(),
-                filter.fromPeriod(),
-                filter.toPeriod(),
-                normalizeCategoryFilter(categoryIds));
-
-        Map<LocalDate, BigDecimal> totalsByPeriod = new LinkedHashMap<>();
-        Map<Long, CategoryAggregation> categoryAggregations = new LinkedHashMap<>();
-
-        for (IncomeRecord record : records) {
-            BigDecimal amount = normalizeAmount(record.getAmount());
-            totalsByPeriod.merge(record.getPeriod(), amount, BigDecimal::add);
-
-            Long categoryId = record.getCategory().getId();
-            CategoryAggregation aggregation = categoryAggregations.computeIfAbsent(
-                    categoryId,
-                    id -> new CategoryAggregation(categoryId, record.getCategory().getName()));
-            aggregation.addAmount(record.getPeriod(), amount);
+        User currentUser = currentUserProvider.getCurrentUser();
+        Slice<EncryptedFinanceRow> slice = financeRecordRowRepository.findPageByUserAndFilter(
+                RecordTable.INCOME,
+                currentUser.getId(),
+                filter,
+                normalizeCategoryFilter(categoryIds),
+                decodeCursor(cursor),
+                resolvePageSize(size));
+
+        List<FinanceRow> rows = bulkRecordDecryptor.decrypt(slice.getContent());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            FinanceRow last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(new RecordCursor(last.period(), last.recordDate(), last.id()));
         }
+        return new CursorPageDto<>(incomeRecordMapper.toDtoListFromRows(rows), nextCursor, slice.hasNext());
+    }
+
+    /**
+     * Готовит потоковую выгрузку записей в NDJSON или CSV.
+     */
+    public StreamingResponseBody exportIncomes(String fromDate, String toDate, String month,
+                                               List<Long> categoryIds, ExportFormat format) {
+        return financeExportService.export(RecordTable.INCOME, fromDate, toDate, month, categoryIds, format,
+                incomeRecordMapper::toDto);
+    }
+
+    /**
+     * Импортирует доходы из выписки CSV или OFX. Категории пользователя загружаются
+     * один раз, отсутствующие создаются по имени при первой встрече.
+     */
+    public ImportResultDto importIncomes(MultipartFile file, String format, String defaultCategory) {
+        User currentUser = currentUserProvider.getCurrentUser();
+        Map<String, Long> categories = new HashMap<>();
+        financeCategoryCache.get(RecordTable.INCOME, currentUser.getId()).all()
+                .forEach(category -> categories.putIfAbsent(category.name().toLowerCase(Locale.ROOT), category.id()));
+        return financeImportService.importStatement(RecordTable.INCOME, file, format, defaultCategory, categories,
+                name -> findOrCreateCategory(currentUser, name));
+    }
 
-        BigDecimal totalAmount = records.stream()
-                .map(IncomeRecord::getAmount)
-                .map(amount -> normalizeAmount(amount))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional(readOnly = true)
+    public IncomeSummaryDto getSummary(String fromDate, String toDate, String month, List<Long> categoryIds) {
+        FinanceFilter filter = buildFilter(fromDate, toDate, month);
+        User currentUser = currentUserProvider.getCurrentUser();
+        return buildSummary(financeAggregationService.aggregate(RecordTable.INCOME, currentUser.getId(), filter, categoryIds));
+    }
 
+    /**
+     * Формирует сводку из готовой агрегации, чтобы дашборд не сканировал записи повторно.
+     */
+    public IncomeSummaryDto buildSummary(FinanceAggregation aggregation) {
         IncomeSummaryDto summaryDto = new IncomeSummaryDto();
-        BigDecimal normalizedTotal = normalizeAmount(totalAmount);
+        BigDecimal normalizedTotal = normalizeAmount(aggregation.getTotal());
         summaryDto.setTotalAmount(normalizedTotal);
 
-        summaryDto.setTotalsByCategory(categoryAggregations.values().stream()
+        summaryDto.setTotalsByCategory(aggregation.getCategories().stream()
                 .sorted(Comparator.comparing(CategoryAggregation::getCategoryName, String.CASE_INSENSITIVE_ORDER))
-                .map(aggregation -> new IncomeSummaryDto.CategoryTotalDto(
-                        aggregation.getCategoryId(),
-                        aggregation.getCategoryName(),
-                        normalizeAmount(aggregation.getTotal()),
-                        calculatePercentage(normalizeAmount(aggregation.getTotal()), normalizedTotal)))
+                .map(category -> new IncomeSummaryDto.CategoryTotalDto(
+                        category.getCategoryId(),
+                        category.getCategoryName(),
+                        normalizeAmount(category.getTotal()),
+                        calculatePercentage(normalizeAmount(category.getTotal()), normalizedTotal)))
                 .collect(Collectors.toList()));
 
-        summaryDto.setTotalsByMonth(totalsByPeriod.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
+        summaryDto.setTotalsByMonth(aggregation.getTotalsByPeriod().entrySet().stream()
                 .map(entry -> new IncomeSummaryDto.MonthlyTotalDto(
                         formatPeriod(entry.getKey()),
                         normalizeAmount(entry.getValue())))
                 .collect(Collectors.toList()));
 
-        summaryDto.setCategoryMonthlyTotals(buildCategoryMonthlySummary(categoryAggregations));
+        summaryDto.setCategoryMonthlyTotals(buildCategoryMonthlySummary(aggregation.getCategories()));
         return summaryDto;
     }
 
@@ -204,23 +289,52 @@ public class IncomeRecordService {
         return amount.multiply(BigDecimal.valueOf(100)).divide(total, 2, RoundingMode.HALF_UP);
     }
 
-    private List<Long> normalizeCategoryFilter(List<Long> categoryIds) {
-        if (categoryIds == null || categoryIds.isEmpty()) {
-            return null;
-        }
-        List<Long> distinct = categoryIds.stream()
-                .filter(id -> id != null)
-                .distinct()
-                .collect(Collectors.toList());
-        return distinct.isEmpty() ? null : distinct;
+    private List<FinanceRow> loadRows(User user, FinanceFilter filter, List<Long> categoryIds, boolean withText) {
+        List<EncryptedFinanceRow> encrypted = financeRecordRowRepository.findByUserAndFilter(
+                RecordTable.INCOME,
+                user.getId(),
+                filter,
+                normalizeCategoryFilter(categoryIds),
+                withText);
+        return bulkRecordDecryptor.decrypt(encrypted);
+    }
+
+    private Long findOrCreateCategory(User user, String name) {
+        return incomeCategoryRepository.findByUserAndNameIgnoreCase(user, name)
+                .orElseGet(() -> {
+                    IncomeCategory category = new IncomeCategory();
+                    category.setName(name);
+                    category.setUser(user);
+                    IncomeCategory saved = incomeCategoryRepository.save(category);
+                    financeCategoryCache.evict(RecordTable.INCOME, user.getId());
+                    return saved;
+                })
+                .getId();
     }
 
-    private List<IncomeSummaryDto.CategoryMonthlySummaryDto> buildCategoryMonthlySummary(Map<Long, CategoryAggregation> aggregations) {
-        return aggregations.values().stream()
+    /**
+     * Находит категорию пользователя в закэшированном словаре и возвращает ссылку на неё
+     * без запроса к базе; имя и описание берутся из словаря.
+     */
+    private IncomeCategory findCategory(Long categoryId, User user) {
+        FinanceCategory category = financeCategoryCache.get(RecordTable.INCOME, user.getId()).findById(categoryId)
+                .orElseThrow(() -> new IncomeCategoryNotFoundException(categoryId));
+        return new IncomeCategory(category.id(), category.name(), category.description(), user);
+    }
+
+    private void addToRollup(FinanceRollupService.Delta delta, IncomeRecord record) {
+        delta.add(record.getCategory().getId(), record.getPeriod(), record.getAmount());
+    }
+
+    private void removeFromRollup(FinanceRollupService.Delta delta, IncomeRecord record) {
+        delta.remove(record.getCategory().getId(), record.getPeriod(), record.getAmount());
+    }
+
+    private List<IncomeSummaryDto.CategoryMonthlySummaryDto> buildCategoryMonthlySummary(Collection<CategoryAggregation> aggregations) {
+        return aggregations.stream()
                 .sorted(Comparator.comparing(CategoryAggregation::getCategoryName, String.CASE_INSENSITIVE_ORDER))
                 .map(aggregation -> {
                     List<IncomeSummaryDto.MonthlyTotalDto> monthlyTotals = aggregation.getMonthlyTotals().entrySet().stream()
-                            .sorted(Map.Entry.comparingByKey())
                             .map(entry -> new IncomeSummaryDto.MonthlyTotalDto(
                                     formatPeriod(entry.getKey()),
                                     normalizeAmount(entry.getValue())))
@@ -233,42 +347,8 @@ public class IncomeRecordService {
                 .collect(Collectors.toList());
     }
 
-    private static class CategoryAggregation {
-        private final Long categoryId;
-        private final String categoryName;
-        private BigDecimal total = BigDecimal.ZERO;
-        private final Map<LocalDate, BigDecimal> monthlyTotals = new LinkedHashMap<>();
-
-        CategoryAggregation(Long categoryId, String categoryName) {
-            this.categoryId = categoryId;
-            this.categoryName = categoryName;
-        }
-
-        void addAmount(LocalDate period, BigDecimal amount) {
-            total = total.add(amount);
-            monthlyTotals.merge(period, amount, BigDecimal::add);
-        }
-
-        Long getCategoryId() {
-            return categoryId;
-        }
-
-        String getCategoryName() {
-            return categoryName;
-        }
-
-        BigDecimal getTotal() {
-            return total;
-        }
-
-        Map<LocalDate, BigDecimal> getMonthlyTotals() {
-            return monthlyTotals;
-        }
-    }
-
     private IncomeRecord mapToEntity(IncomeRecordRequestDto dto, YearMonth defaultPeriod, User currentUser) {
-        IncomeCategory category = incomeCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                .orElseThrow(() -> new IncomeCategoryNotFoundException(dto.getCategoryId()));
+        IncomeCategory category = findCategory(dto.getCategoryId(), currentUser);
 
         LocalDate incomeDate = dto.getIncomeDate();
         YearMonth period = resolvePeriod(dto, defaultPeriod, incomeDate);
@@ -285,8 +365,7 @@ public class IncomeRecordService {
     }
 
     private void applyFullUpdate(IncomeRecord record, IncomeRecordRequestDto dto, User currentUser) {
-        IncomeCategory category = incomeCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                .orElseThrow(() -> new IncomeCategoryNotFoundException(dto.getCategoryId()));
+        IncomeCategory category = findCategory(dto.getCategoryId(), currentUser);
 
         LocalDate incomeDate = dto.getIncomeDate();
         YearMonth period = resolvePeriod(dto, null, incomeDate);
@@ -316,9 +395,7 @@ public class IncomeRecordService {
         }
 
         if (dto.getCategoryId() != null) {
-            IncomeCategory category = incomeCategoryRepository.findByIdAndUser(dto.getCategoryId(), currentUser)
-                    .orElseThrow(() -> new IncomeCategoryNotFoundException(dto.getCategoryId()));
-            record.setCategory(category);
+            record.setCategory(findCategory(dto.getCategoryId(), currentUser));
         }
 
         if (dto.getIncomeDate() != null) {
@@ -355,11 +432,4 @@ public class IncomeRecordService {
         }
         throw new IllegalArgumentException("Для дохода необходимо указать дату или месяц");
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
@@ -0,0 +1,180 @@
+package com.traker.traker.service;
+
+import com.traker.traker.entity.Status;
+import com.traker.traker.entity.User;
+import com.traker.traker.repository.StatusRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ограниченный по размеру LRU-кэш статусов пользователя. Запись кэша загружается
+ * одним запросом при первом обращении и сбрасывается после фиксации транзакции,
+ * изменившей статусы, поэтому разрешение статуса при сохранении записей времени
+ * сводится к поиску в словаре.
+ * <p>
+ * В кэше хранятся отсоединённые копии сущностей: их можно назначать записям как
+ * ссылки, но нельзя менять. Поколения изменений ведутся по пользователю: список
+ * не кладётся в кэш, только если за время загрузки менялись статусы того же пользователя.
+ */
+@Component
+public class StatusCache {
+
+    private final StatusRepository statusRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Long, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, Long> changedAt = new LinkedHashMap<>();
+    private long forgottenChangesUpTo;
+
+    public StatusCache(StatusRepository statusRepository,
+                       @Value("${app.status-cache.max-size:10000}") int maxSize,
+                       @Value("${app.status-cache.ttl:PT30M}") Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша статусов должен быть положительным");
+        }
+        this.statusRepository = statusRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = Clock.systemUTC();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Возвращает статусы пользователя из кэша, при промахе загружая их из базы.
+     */
+    public UserStatuses get(User user) {
+        if (TransactionSynchronizationManager.hasResource(new PendingEviction(this, user.getId()))) {
+            // Текущая транзакция уже изменила статусы: читаем их мимо кэша до фиксации
+            return load(user);
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(user.getId());
+            if (entry != null && entry.expiresAt > clock.millis()) {
+                return entry.statuses;
+            }
+        }
+        long loadedGeneration = generation.get();
+        UserStatuses statuses = load(user);
+        synchronized (entries) {
+            if (lastChange(user.getId()) <= loadedGeneration) {
+                entries.put(user.getId(), new Entry(statuses, clock.millis() + ttlMillis));
+                evictOverflow();
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Сбрасывает статусы пользователя сразу и ещё раз после фиксации текущей транзакции,
+     * чтобы параллельное чтение не вернуло в кэш незафиксированное состояние.
+     */
+    public void evict(Long userId) {
+        remove(userId);
+        PendingEviction pending = new PendingEviction(this, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(pending)) {
+            TransactionSynchronizationManager.bindResource(pending, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pending);
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    private UserStatuses load(User user) {
+        return new UserStatuses(statusRepository.findByUserOrderByOrderIndexAscNameAsc(user).stream()
+                .map(status -> new Status(status.getId(), status.getName(), status.getUser(), status.getOrderIndex()))
+                .toList());
+    }
+
+    private void remove(Long userId) {
+        synchronized (entries) {
+            markChanged(userId);
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * Отмечает изменение ключа новым поколением; карта поколений ограничена размером кэша,
+     * а для вытесненных из неё ключей действует консервативная нижняя граница.
+     * Вызывается под блокировкой {@code entries}.
+     */
+    private void markChanged(Long userId) {
+        long tick = generation.incrementAndGet();
+        changedAt.remove(userId);
+        changedAt.put(userId, tick);
+        Iterator<Long> iterator = changedAt.values().iterator();
+        while (changedAt.size() > maxSize && iterator.hasNext()) {
+            forgottenChangesUpTo = Math.max(forgottenChangesUpTo, iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private long lastChange(Long userId) {
+        Long tick = changedAt.get(userId);
+        return tick != null ? tick : forgottenChangesUpTo;
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Неизменяемый набор статусов пользователя в порядке отображения.
+     */
+    public static final class UserStatuses {
+        private final List<Status> ordered;
+        private final Map<Long, Status> byId;
+        private final Map<String, Status> byName;
+
+        private UserStatuses(List<Status> ordered) {
+            this.ordered = ordered;
+            this.byId = ordered.stream().collect(Collectors.toUnmodifiableMap(Status::getId, Function.identity()));
+            Map<String, Status> names = new HashMap<>();
+            ordered.forEach(status -> names.putIfAbsent(status.getName(), status));
+            this.byName = Collections.unmodifiableMap(names);
+        }
+
+        public List<Status> all() {
+            return ordered;
+        }
+
+        public Optional<Status> findById(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        public Optional<Status> findByName(String name) {
+            return Optional.ofNullable(byName.get(name));
+        }
+    }
+
+    private record Entry(UserStatuses statuses, long expiresAt) {
+    }
+
+    private record PendingEviction(StatusCache cache, Long userId) {
+    }
+}
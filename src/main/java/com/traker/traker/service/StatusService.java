@@ -6,14 +6,15 @@ import com.traker.traker.entity.Status;
 import com.traker.traker.entity.User;
 import com.traker.traker.exception.StatusNotFoundException;
 import com.traker.traker.mapper.StatusMapper;
+import com.traker.traker.repository.StatusOrderRepository;
 import com.traker.traker.repository.StatusRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.security.CurrentUserProvider;
 import org.springframework.stereotype.Service;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -22,17 +23,22 @@ public class StatusService extends DefaultService<Long, Status, StatusDto> {
 
     private final StatusMapper statusMapper;
     private final StatusRepository statusRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserProvider currentUserProvider;
+    private final StatusCache statusCache;
+    private final StatusOrderRepository statusOrderRepository;
 
-    public StatusService(StatusMapper statusMapper, StatusRepository statusRepository, UserRepository userRepository) {
+    public StatusService(StatusMapper statusMapper, StatusRepository statusRepository, CurrentUserProvider currentUserProvider,
+                         StatusCache statusCache, StatusOrderRepository statusOrderRepository) {
         super(statusRepository, statusMapper, StatusNotFoundException::new);
         this.statusMapper = statusMapper;
         this.statusRepository = statusRepository;
-        this.userRepository = userRepository;
+        this.currentUserProvider = currentUserProvider;
+        this.statusCache = statusCache;
+        this.statusOrderRepository = statusOrderRepository;
     }
 
     public StatusDto createStatus(StatusDto statusDto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         Status status = statusMapper.toEntity(statusDto);
         status.setUser(currentUser);
         int nextOrder = statusDto.getOrder() != null
@@ -42,11 +48,12 @@ public class StatusService extends DefaultService<Long, Status, StatusDto> {
                 .orElse(0);
         status.setOrderIndex(nextOrder);
         Status savedStatus = statusRepository.save(status);
+        statusCache.evict(currentUser.getId());
         return statusMapper.toDto(savedStatus);
     }
 
     public StatusDto updateStatus(Long id, StatusDto statusDto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         Status status = statusRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new StatusNotFoundException(id));
         status.setName(statusDto.getName());
@@ -54,49 +61,69 @@ public class StatusService extends DefaultService<Long, Status, StatusDto> {
             status.setOrderIndex(Math.max(0, statusDto.getOrder()));
         }
         Status updatedStatus = statusRepository.save(status);
+        statusCache.evict(currentUser.getId());
         return statusMapper.toDto(updatedStatus);
     }
 
+    /**
+     * Сохраняет порядок всех статусов текущего пользователя одним запросом.
+     *
+     * @param orderedIds id всех статусов пользователя в новом порядке
+     */
+    @Transactional
+    public void reorderStatuses(List<Long> orderedIds) {
+        User currentUser = currentUserProvider.getCurrentUser();
+        Set<Long> uniqueIds = new HashSet<>(orderedIds);
+        if (uniqueIds.size() != orderedIds.size()) {
+            throw new IllegalArgumentException("Статус указан в порядке несколько раз");
+        }
+        Set<Long> ownIds = statusCache.get(currentUser).all().stream()
+                .map(Status::getId)
+                .collect(Collectors.toSet());
+        if (!ownIds.equals(uniqueIds)) {
+            throw new IllegalArgumentException("Порядок должен содержать все статусы пользователя");
+        }
+        int updated = statusOrderRepository.updateOrder(currentUser.getId(), orderedIds);
+        statusCache.evict(currentUser.getId());
+        if (updated != orderedIds.size()) {
+            // Статус удалён параллельно: откатываем изменение порядка
+            throw new IllegalArgumentException("Порядок должен содержать все статусы пользователя");
+        }
+    }
+
     public StatusDto findByName(String name) {
-        User currentUser = getCurrentUser();
-        Status status = statusRepository.findByNameAndUser(name, currentUser)
+        User currentUser = currentUserProvider.getCurrentUser();
+        Status status = statusCache.get(currentUser).findByName(name)
                 .orElseThrow(() -> new StatusNotFoundException(name));
         return statusMapper.toDto(status);
     }
 
     @Override
     public StatusDto delete(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         Status status = statusRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new StatusNotFoundException(id));
         statusRepository.delete(status);
+        statusCache.evict(currentUser.getId());
         return statusMapper.toDto(status);
     }
 
     @Override
     public Status findByIdInternal(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         return statusRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new StatusNotFoundException(id));
     }
 
     @Override
     public List<StatusDto> findAll() {
-        User currentUser = getCurrentUser();
-        List<StatusDto> statuses = statusRepository.findByUserOrderByOrderIndexAscNameAsc(currentUser).stream()
+        User currentUser = currentUserProvider.getCurrentUser();
+        // Кэш уже хранит статусы в порядке отображения: пересортировка не нужна
+        List<StatusDto> statuses = statusCache.get(currentUser).all().stream()
                 .map(statusMapper::toDto)
-                .sorted(Comparator.comparing((StatusDto dto) -> dto.getOrder() == null ? 0 : dto.getOrder())
-                        .thenComparing(StatusDto::getName, String.CASE_INSENSITIVE_ORDER))
                 .collect(Collectors.toList());
         AtomicInteger orderCounter = new AtomicInteger();
         statuses.forEach(dto -> dto.setOrder(orderCounter.getAndIncrement()));
         return statuses;
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
 }
\ No newline at end of file
@@ -1,31 +1,45 @@
 package com.traker.traker.service;
 
-import com.traker.traker.entity.DayLog;
-import com.traker.traker.entity.TimeEntry;
+import com.traker.traker.dto.stats.StatusTimeStatsDto;
+import com.traker.traker.dto.stats.StreakStatsDto;
+import com.traker.traker.dto.stats.TimeStatsSummaryDto;
+import com.traker.traker.dto.stats.WeekdayTimeStatsDto;
 import com.traker.traker.entity.User;
-import com.traker.traker.repository.DayLogRepository;
 import com.traker.traker.repository.TimeEntryRepository;
-import com.traker.traker.repository.UserRepository;
+import com.traker.traker.repository.TimeStatsRepository;
+import com.traker.traker.repository.TimeStatsRepository.Streak;
+import com.traker.traker.repository.TimeStatsRepository.Totals;
+import com.traker.traker.repository.TimeStatsRepository.WeekdayTotal;
+import com.traker.traker.security.CurrentUserProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для управления записями времени и расчета статистики.
+ * Статистика считается SQL-агрегатами по таблице дневных сумм {@code time_daily_rollup},
+ * которая пересчитывается при каждом изменении записей дня.
  */
 @Service
 @RequiredArgsConstructor
 public class TimeEntryService {
 
+    private static final int MAX_STATS_RANGE_DAYS = 3660;
+
     private final TimeEntryRepository timeEntryRepository;
-    private final DayLogRepository dayLogRepository;
-    private final UserRepository userRepository;
+    private final TimeStatsRepository timeStatsRepository;
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * Рассчитывает общее количество отработанных часов за указанную дату для текущего пользователя.
@@ -34,32 +48,146 @@ public class TimeEntryService {
      * @return общее количество отработанных часов за указанную дату
      * @throws IllegalArgumentException если формат даты неверный
      */
+    @Transactional(readOnly = true)
     public double getTotalHoursWorked(String dateStr) {
         LocalDate date = parseDate(dateStr);
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
+        return timeStatsRepository.findWorkedMinutes(currentUser.getId(), date) / 60.0;
+    }
 
-        Optional<DayLog> dayLogOptional = dayLogRepository.findByDate(date);
+    /**
+     * Возвращает суммарное и рабочее время текущего пользователя за диапазон дат.
+     *
+     * @param from первая дата диапазона (yyyy-MM-dd)
+     * @param to   последняя дата диапазона включительно (yyyy-MM-dd)
+     */
+    @Transactional(readOnly = true)
+    public TimeStatsSummaryDto getSummary(String from, String to) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        User currentUser = currentUserProvider.getCurrentUser();
 
-        if (dayLogOptional.isEmpty()) {
-            return 0;
-        }
+        Totals totals = timeStatsRepository.findTotals(currentUser.getId(), fromDate, toDate);
+        return new TimeStatsSummaryDto(
+                fromDate.toString(),
+                toDate.toString(),
+                totals.totalMinutes(),
+                totals.workedMinutes(),
+                toHours(totals.workedMinutes()),
+                totals.trackedDays(),
+                totals.workedDays(),
+                totals.workedDays() == 0 ? 0 : toHours(totals.workedMinutes() / (double) totals.workedDays()));
+    }
+
+    /**
+     * Возвращает распределение времени текущего пользователя по статусам за диапазон дат.
+     */
+    @Transactional(readOnly = true)
+    public List<StatusTimeStatsDto> getStatusBreakdown(String from, String to) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        User currentUser = currentUserProvider.getCurrentUser();
+
+        List<TimeStatsRepository.StatusTotal> totals =
+                timeStatsRepository.findTotalsByStatus(currentUser.getId(), fromDate, toDate);
+        long overall = totals.stream().mapToLong(TimeStatsRepository.StatusTotal::totalMinutes).sum();
+        return totals.stream()
+                .map(total -> new StatusTimeStatsDto(
+                        total.statusId(),
+                        total.statusName(),
+                        total.totalMinutes(),
+                        total.workedMinutes(),
+                        total.entryCount(),
+                        overall == 0 ? 0 : round(total.totalMinutes() * 100.0 / overall)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Возвращает тепловую карту по дням недели: все семь дней, начиная с понедельника,
+     * включая дни без записей.
+     */
+    @Transactional(readOnly = true)
+    public List<WeekdayTimeStatsDto> getWeekdayHeatmap(String from, String to) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        User currentUser = currentUserProvider.getCurrentUser();
+
+        Map<Integer, WeekdayTotal> totals = timeStatsRepository.findTotalsByWeekday(currentUser.getId(), fromDate, toDate)
+                .stream()
+                .collect(Collectors.toMap(WeekdayTotal::dayOfWeek, Function.identity()));
+        return Arrays.stream(DayOfWeek.values())
+                .map(day -> {
+                    WeekdayTotal total = totals.get(day.getValue());
+                    if (total == null) {
+                        return new WeekdayTimeStatsDto(day.name(), 0, 0, 0, 0);
+                    }
+                    return new WeekdayTimeStatsDto(
+                            day.name(),
+                            total.totalMinutes(),
+                            total.workedMinutes(),
+                            total.days(),
+                            toHours(total.workedMinutes() / (double) total.days()));
+                })
+                .collect(Collectors.toList());
+    }
 
-        DayLog dayLog = dayLogOptional.get();
+    /**
+     * Возвращает серии подряд идущих дней с рабочим временем за диапазон дат.
+     * Текущей считается серия, которая заканчивается последним днём диапазона или днём ранее.
+     */
+    @Transactional(readOnly = true)
+    public StreakStatsDto getStreaks(String from, String to) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        User currentUser = currentUserProvider.getCurrentUser();
 
-        List<TimeEntry> entries = timeEntryRepository.findByDayLogAndUser(dayLog, currentUser);
+        List<Streak> streaks = timeStatsRepository.findWorkedStreaks(currentUser.getId(), fromDate, toDate);
+        int longest = streaks.stream().mapToInt(Streak::days).max().orElse(0);
+        int current = 0;
+        if (!streaks.isEmpty()) {
+            Streak last = streaks.get(streaks.size() - 1);
+            if (!last.to().isBefore(toDate.minusDays(1))) {
+                current = last.days();
+            }
+        }
+        return new StreakStatsDto(current, longest, streaks.stream()
+                .map(streak -> new StreakStatsDto.StreakDto(streak.from().toString(), streak.to().toString(), streak.days()))
+                .collect(Collectors.toList()));
+    }
 
-        int totalMinutes = entries.stream()
-                .filter(TimeEntry::isWorked)
-                .mapToInt(this::calculateDurationMinutes)
-                .sum();
+    /**
+     * Пересчитывает дневные суммы пользователя за указанные дни. Вызывается в транзакции,
+     * изменившей записи времени: несохранённые изменения сначала сбрасываются в базу.
+     */
+    @Transactional
+    public void refreshDailyRollup(Long userId, Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        timeEntryRepository.flush();
+        timeStatsRepository.lock(userId);
+        timeStatsRepository.refreshDays(userId, days);
+    }
 
-        return totalMinutes / 60.0;
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания диапазона раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_STATS_RANGE_DAYS) {
+            throw new IllegalArgumentException("Диапазон не может быть длиннее " + MAX_STATS_RANGE_DAYS + " дней");
+        }
+    }
+
+    private double toHours(double minutes) {
+        return round(minutes / 60.0);
     }
 
-    private int calculateDurationMinutes(TimeEntry entry) {
-        int startMinutes = entry.getHour() * 60 + entry.getMinute();
-        int endMinutes = entry.getEndHour() * 60 + entry.getEndMinute();
-        return Math.max(endMinutes - startMinutes, 0);
+    private double round(double value) {
+        return Math.round(value * 100) / 100.0;
     }
 
     /**
@@ -76,16 +204,4 @@ public class TimeEntryService {
             throw new IllegalArgumentException("Неверный формат даты: " + dateStr, e);
         }
     }
-
-    /**
-     * Возвращает текущего аутентифицированного пользователя.
-     *
-     * @return Текущий пользователь
-     */
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Пользователь не найден: " + username));
-    }
-}
\ No newline at end of file
+}
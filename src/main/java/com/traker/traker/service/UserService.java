@@ -14,13 +14,12 @@ import com.traker.traker.mapper.RoleMapper;
 import com.traker.traker.mapper.UserMapper;
 import com.traker.traker.repository.RoleRepository;
 import com.traker.traker.repository.UserRepository;
+import com.traker.traker.security.CurrentUserProvider;
 import com.traker.traker.security.UserEncryptionService;
 import com.traker.traker.utils.CommonUtils;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,6 +42,7 @@ public class UserService extends DefaultService<Long, User, UserDto> {
     PasswordEncoder passwordEncoder;
     AuthService authService;
     UserEncryptionService userEncryptionService;
+    CurrentUserProvider currentUserProvider;
 
     /**
      * Конструктор для инициализации сервиса и зависимостей.
@@ -53,6 +53,7 @@ public class UserService extends DefaultService<Long, User, UserDto> {
      * @param roleMapper       Маппер для ролей
      * @param passwordEncoder  Кодировщик паролей
      * @param authService      Сервис аутентификации
+     * @param currentUserProvider Провайдер текущего пользователя
      */
     public UserService(UserRepository userRepository,
                        UserMapper userMapper,
@@ -60,7 +61,8 @@ public class UserService extends DefaultService<Long, User, UserDto> {
                        RoleMapper roleMapper,
                        PasswordEncoder passwordEncoder,
                        AuthService authService,
-                       UserEncryptionService userEncryptionService) {
+                       UserEncryptionService userEncryptionService,
+                       CurrentUserProvider currentUserProvider) {
         super(userRepository, userMapper, id -> new NotFoundException("User", id) {
             @Override
             public String getEntityClassName() {
@@ -74,6 +76,7 @@ public class UserService extends DefaultService<Long, User, UserDto> {
         this.passwordEncoder = passwordEncoder;
         this.authService = authService;
         this.userEncryptionService = userEncryptionService;
+        this.currentUserProvider = currentUserProvider;
     }
 
     /**
@@ -126,7 +129,7 @@ public class UserService extends DefaultService<Long, User, UserDto> {
      */
     @Transactional
     public UserDto updateUser(Long id, UpdateUserDto updateUserDto) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         if (!currentUser.getId().equals(id)) {
             throw new UnauthorizedException("Вы можете обновлять только свои данные");
         }
@@ -144,6 +147,8 @@ public class UserService extends DefaultService<Long, User, UserDto> {
         });
         user.setUpdatedAt(LocalDateTime.now());
 
+        // Сбрасываем закешированный ключ сейчас и после фиксации, чтобы старые токены перепроверялись по базе
+        userEncryptionService.evictKey(id);
         return userMapper.toDto(userRepository.save(user));
     }
 
@@ -154,11 +159,12 @@ public class UserService extends DefaultService<Long, User, UserDto> {
      */
     @Transactional
     public void deleteUser(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUser();
         if (!currentUser.getId().equals(id)) {
             throw new UnauthorizedException("Вы можете удалять только свой аккаунт");
         }
         userRepository.deleteById(id);
+        userEncryptionService.evictKey(id);
     }
 
     /**
@@ -168,27 +174,11 @@ public class UserService extends DefaultService<Long, User, UserDto> {
      */
     @Transactional(readOnly = true)
     public UserDto getCurrentUserDto() {
-        User user = getCurrentUser();
+        // Принципал в stateless-режиме содержит только данные из токена
+        User user = findByIdInternal(currentUserProvider.getCurrentUser().getId());
         return userMapper.toDto(user);
     }
 
-    /**
-     * Возвращает текущего аутентифицированного пользователя.
-     *
-     * @return Текущий пользователь
-     */
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("User", username) {
-                    @Override
-                    public String getEntityClassName() {
-                        return "Пользователь";
-                    }
-                });
-    }
-
     /**
      * Нормализует имя пользователя.
      *
@@ -2,10 +2,15 @@ package com.traker.traker.utils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * Утилитарные методы для работы с финансовыми фильтрами и форматами дат.
@@ -17,6 +22,11 @@ public final class FinanceUtils {
 
     public static final DateTimeFormatter PERIOD_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CURSOR_SEPARATOR = "|";
+
     /**
      * Формирует фильтр по датам и месяцам, запрещая смешение точных дат и агрегированного месяца.
      */
@@ -93,6 +103,68 @@ public final class FinanceUtils {
         return (period == null) ? null : period.format(PERIOD_FORMATTER);
     }
 
+    /**
+     * Убирает пустые и повторяющиеся идентификаторы категорий, возвращая {@code null}, если фильтра нет.
+     */
+    public static List<Long> normalizeCategoryFilter(List<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        List<Long> distinct = categoryIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        return distinct.isEmpty() ? null : distinct;
+    }
+
+    /**
+     * Возвращает размер страницы, ограниченный {@link #MAX_PAGE_SIZE}.
+     */
+    public static int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Кодирует позицию последней записи страницы в непрозрачный курсор.
+     */
+    public static String encodeCursor(RecordCursor cursor) {
+        String raw = cursor.period() + CURSOR_SEPARATOR
+                + (cursor.recordDate() == null ? "" : cursor.recordDate()) + CURSOR_SEPARATOR
+                + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, полученный от {@link #encodeCursor}, возвращая {@code null} для пустого значения.
+     */
+    public static RecordCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split(Pattern.quote(CURSOR_SEPARATOR), -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Некорректный курсор страницы");
+        }
+        try {
+            LocalDate recordDate = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+            return new RecordCursor(LocalDate.parse(parts[0]), recordDate, Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+    }
+
     public record FinanceFilter(
             LocalDate fromDate,
             LocalDate toDate,
@@ -101,4 +173,14 @@ public final class FinanceUtils {
             YearMonth month
     ) {
     }
+
+    /**
+     * Позиция записи в порядке (период, дата, id), после которой начинается следующая страница.
+     */
+    public record RecordCursor(
+            LocalDate period,
+            LocalDate recordDate,
+            Long id
+    ) {
+    }
 }
@@ -0,0 +1,172 @@
+package com.traker.traker.utils.statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Потоковый разбор CSV-выписки (RFC 4180: кавычки, экранирование кавычек и
+ * переносы строк внутри значений). Разделитель — запятая или точка с запятой,
+ * определяется по заголовку. Колонки сопоставляются по названиям из заголовка.
+ */
+public class CsvStatementReader implements StatementReader {
+
+    private static final Map<String, String> COLUMN_ALIASES = Map.ofEntries(
+            Map.entry("date", "date"),
+            Map.entry("дата", "date"),
+            Map.entry("period", "period"),
+            Map.entry("month", "period"),
+            Map.entry("период", "period"),
+            Map.entry("месяц", "period"),
+            Map.entry("category", "category"),
+            Map.entry("категория", "category"),
+            Map.entry("title", "title"),
+            Map.entry("name", "title"),
+            Map.entry("название", "title"),
+            Map.entry("description", "description"),
+            Map.entry("memo", "description"),
+            Map.entry("описание", "description"),
+            Map.entry("amount", "amount"),
+            Map.entry("сумма", "amount"));
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private char delimiter;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvStatementReader(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        readHeader();
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        List<String> values;
+        do {
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        return new StatementRow(
+                recordLine,
+                value(values, "date"),
+                value(values, "period"),
+                value(values, "category"),
+                value(values, "title"),
+                value(values, "description"),
+                value(values, "amount"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        reader.mark(64 * 1024);
+        String firstLine = reader.readLine();
+        if (firstLine == null) {
+            throw new IllegalArgumentException("Файл выписки пуст");
+        }
+        reader.reset();
+        if (firstLine.startsWith("\uFEFF")) {
+            reader.skip(1);
+            firstLine = firstLine.substring(1);
+        }
+        delimiter = count(firstLine, ';') > count(firstLine, ',') ? ';' : ',';
+
+        List<String> header = readRecord();
+        for (int i = 0; i < header.size(); i++) {
+            String column = COLUMN_ALIASES.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                columns.putIfAbsent(column, i);
+            }
+        }
+        if (!columns.containsKey("amount") || !columns.containsKey("title")) {
+            throw new IllegalArgumentException("В заголовке CSV должны быть колонки title и amount");
+        }
+        if (!columns.containsKey("date") && !columns.containsKey("period")) {
+            throw new IllegalArgumentException("В заголовке CSV должна быть колонка date или period");
+        }
+    }
+
+    /**
+     * Читает одну запись, которая может занимать несколько строк файла, если значение в кавычках содержит перенос.
+     */
+    private List<String> readRecord() throws IOException {
+        int ch = reader.read();
+        if (ch == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        while (ch != -1) {
+            char c = (char) ch;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int nextChar = reader.read();
+                    if (nextChar == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        if (nextChar != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    value.append(c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                value.append(c);
+            }
+            ch = reader.read();
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка в записи, начинающейся на строке " + recordLine);
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private String value(List<String> values, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int count(String text, char c) {
+        int result = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
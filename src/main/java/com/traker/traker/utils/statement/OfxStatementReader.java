@@ -0,0 +1,114 @@
+package com.traker.traker.utils.statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Потоковый разбор OFX-выписки (как SGML-версии 1.x без закрывающих тегов, так и XML-версии 2.x).
+ * Из каждого блока {@code <STMTTRN>} берутся сумма, дата проведения, название и комментарий;
+ * знак суммы сохраняется, чтобы импорт мог отличить списания от поступлений.
+ */
+public class OfxStatementReader implements StatementReader {
+
+    private static final String TRANSACTION_TAG = "STMTTRN";
+
+    private final BufferedReader reader;
+    private long index;
+
+    public OfxStatementReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        String tag;
+        do {
+            tag = readTag();
+            if (tag == null) {
+                return null;
+            }
+        } while (!TRANSACTION_TAG.equals(tag));
+
+        Map<String, String> values = new HashMap<>();
+        String currentTag = null;
+        while (true) {
+            String text = readText();
+            if (currentTag != null && !text.isBlank()) {
+                values.putIfAbsent(currentTag, unescape(text.trim()));
+            }
+            tag = readTag();
+            if (tag == null || ("/" + TRANSACTION_TAG).equals(tag)) {
+                break;
+            }
+            currentTag = tag.startsWith("/") ? null : tag;
+        }
+
+        String posted = values.get("DTPOSTED");
+        String date = posted != null && posted.length() >= 8 ? posted.substring(0, 8) : posted;
+        String name = values.get("NAME");
+        String memo = values.get("MEMO");
+        return new StatementRow(
+                ++index,
+                date,
+                null,
+                null,
+                name != null ? name : memo,
+                name != null ? memo : null,
+                values.get("TRNAMT"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Пропускает текст до следующего тега и возвращает его имя в верхнем регистре.
+     */
+    private String readTag() throws IOException {
+        int ch;
+        do {
+            ch = reader.read();
+            if (ch == -1) {
+                return null;
+            }
+        } while (ch != '<');
+
+        StringBuilder tag = new StringBuilder();
+        while ((ch = reader.read()) != -1 && ch != '>') {
+            tag.append((char) ch);
+        }
+        return tag.toString().trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Читает текст до следующего тега, не поглощая символ {@code <}.
+     */
+    private String readText() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            reader.mark(1);
+            int ch = reader.read();
+            if (ch == -1) {
+                return text.toString();
+            }
+            if (ch == '<') {
+                reader.reset();
+                return text.toString();
+            }
+            text.append((char) ch);
+        }
+    }
+
+    private String unescape(String value) {
+        return value.replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+}
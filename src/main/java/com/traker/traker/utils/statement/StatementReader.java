@@ -0,0 +1,15 @@
+package com.traker.traker.utils.statement;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательно читает операции из выписки, не загружая файл в память целиком.
+ */
+public interface StatementReader extends Closeable {
+
+    /**
+     * Возвращает следующую операцию или {@code null}, если выписка закончилась.
+     */
+    StatementRow next() throws IOException;
+}
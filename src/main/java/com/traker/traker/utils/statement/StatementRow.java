@@ -0,0 +1,18 @@
+package com.traker.traker.utils.statement;
+
+/**
+ * Строка банковской выписки в исходном текстовом виде. Разбор дат и сумм
+ * выполняется при импорте, чтобы ошибки можно было сообщить построчно.
+ *
+ * @param line номер строки (CSV) или порядковый номер операции (OFX)
+ */
+public record StatementRow(
+        long line,
+        String date,
+        String period,
+        String category,
+        String title,
+        String description,
+        String amount
+) {
+}
@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS finance_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type VARCHAR(16) NOT NULL,
+    category_id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    total BYTEA NOT NULL,
+    record_count INT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_finance_rollup_user_type_category_period UNIQUE (user_id, record_type, category_id, period_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_finance_rollup_user_type_period
+    ON finance_rollup (user_id, record_type, period_start);
+
+CREATE TABLE IF NOT EXISTS finance_rollup_state (
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type VARCHAR(16) NOT NULL,
+    rebuilt_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, record_type)
+);
@@ -0,0 +1,25 @@
+-- Минуты записей времени по пользователю, дню, статусу и признаку рабочего времени.
+-- Статистика за любой период считается по дням, а не по отдельным записям, и не читает зашифрованные комментарии.
+CREATE TABLE IF NOT EXISTS time_daily_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    day DATE NOT NULL,
+    status_id BIGINT,
+    worked BOOLEAN NOT NULL,
+    minutes INTEGER NOT NULL,
+    entry_count INTEGER NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_time_daily_rollup_key
+    ON time_daily_rollup (user_id, day, COALESCE(status_id, 0), worked);
+
+INSERT INTO time_daily_rollup (user_id, day, status_id, worked, minutes, entry_count)
+SELECT te.user_id,
+       dl.date,
+       te.status_id,
+       COALESCE(te.worked, FALSE),
+       SUM((te.end_hour * 60 + te.end_minute) - (te.hour * 60 + te.minute)),
+       COUNT(*)
+FROM time_entry te
+JOIN day_log dl ON dl.id = te.day_log_id
+GROUP BY te.user_id, dl.date, te.status_id, COALESCE(te.worked, FALSE);
@@ -0,0 +1,31 @@
+-- Дни становятся собственностью пользователя: уникальность по (user_id, date) вместо общей по date,
+-- чтобы первые записи разных пользователей за одну дату не конкурировали за одну строку.
+ALTER TABLE day_log
+    ADD COLUMN user_id BIGINT REFERENCES users(id) ON DELETE CASCADE;
+
+-- Существующий день достаётся одному из пользователей его записей
+UPDATE day_log dl
+SET user_id = (SELECT MIN(te.user_id) FROM time_entry te WHERE te.day_log_id = dl.id);
+
+-- Остальным пользователям этой даты создаются собственные дни
+INSERT INTO day_log (date, user_id)
+SELECT DISTINCT dl.date, te.user_id
+FROM time_entry te
+JOIN day_log dl ON dl.id = te.day_log_id
+WHERE te.user_id <> dl.user_id;
+
+UPDATE time_entry te
+SET day_log_id = own.id
+FROM day_log shared, day_log own
+WHERE te.day_log_id = shared.id
+  AND te.user_id <> shared.user_id
+  AND own.date = shared.date
+  AND own.user_id = te.user_id;
+
+-- Дни без записей никому не принадлежат
+DELETE FROM day_log WHERE user_id IS NULL;
+
+ALTER TABLE day_log ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE day_log DROP CONSTRAINT IF EXISTS day_log_date_key;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_day_log_user_date ON day_log (user_id, date);
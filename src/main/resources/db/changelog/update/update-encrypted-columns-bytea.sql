@@ -0,0 +1,25 @@
+-- Переводим зашифрованные поля в bytea. Существующие значения (Base64-текст)
+-- сохраняются как UTF-8 байты и остаются читаемыми; компактный бинарный
+-- формат (байт версии 0x01 + IV + шифртекст) проставляет фоновый мигратор.
+-- Внимание: смена типа колонок переписывает каждую таблицу целиком под блокировкой
+-- ACCESS EXCLUSIVE, и на время миграции таблицы недоступны даже для чтения.
+-- Миграция требует окна обслуживания; в фоне выполняется только перевод значений
+-- в бинарный формат.
+ALTER TABLE expense_record
+    ALTER COLUMN title TYPE BYTEA USING convert_to(title, 'UTF8'),
+    ALTER COLUMN description TYPE BYTEA USING convert_to(description, 'UTF8'),
+    ALTER COLUMN amount TYPE BYTEA USING convert_to(amount, 'UTF8');
+
+ALTER TABLE income_record
+    ALTER COLUMN title TYPE BYTEA USING convert_to(title, 'UTF8'),
+    ALTER COLUMN description TYPE BYTEA USING convert_to(description, 'UTF8'),
+    ALTER COLUMN amount TYPE BYTEA USING convert_to(amount, 'UTF8');
+
+ALTER TABLE budget
+    ALTER COLUMN planned_income TYPE BYTEA USING convert_to(planned_income, 'UTF8'),
+    ALTER COLUMN planned_expense TYPE BYTEA USING convert_to(planned_expense, 'UTF8'),
+    ALTER COLUMN savings_goal TYPE BYTEA USING convert_to(savings_goal, 'UTF8'),
+    ALTER COLUMN notes TYPE BYTEA USING convert_to(notes, 'UTF8');
+
+ALTER TABLE time_entry
+    ALTER COLUMN comment TYPE BYTEA USING convert_to(comment, 'UTF8');
@@ -0,0 +1,13 @@
+-- Покрывающие индексы в порядке выборки записей (период, дата, id): диапазон по периоду
+-- читается одним проходом по индексу без отдельной сортировки, а keyset-страницы
+-- продолжают просмотр с позиции курсора. Индексы по (user_id, period_start) становятся
+-- их префиксом и больше не нужны.
+CREATE INDEX IF NOT EXISTS idx_expense_record_user_period_date_id
+    ON expense_record (user_id, period_start, expense_date, id);
+
+DROP INDEX IF EXISTS idx_expense_record_user_period;
+
+CREATE INDEX IF NOT EXISTS idx_income_record_user_period_date_id
+    ON income_record (user_id, period_start, income_date, id);
+
+DROP INDEX IF EXISTS idx_income_record_user_period;
@@ -0,0 +1,16 @@
+-- Идентификаторы выдаются блоками по 50 (pooled-lo в Hibernate), чтобы INSERT можно было группировать в JDBC-батчи.
+-- Значение последовательности — нижняя граница блока, поэтому вставки через DEFAULT не пересекаются с выданными блоками.
+ALTER TABLE time_entry ALTER COLUMN id SET GENERATED BY DEFAULT;
+ALTER TABLE time_entry ALTER COLUMN id SET INCREMENT BY 50;
+
+ALTER TABLE day_log ALTER COLUMN id SET GENERATED BY DEFAULT;
+ALTER TABLE day_log ALTER COLUMN id SET INCREMENT BY 50;
+
+ALTER TABLE status ALTER COLUMN id SET GENERATED BY DEFAULT;
+ALTER TABLE status ALTER COLUMN id SET INCREMENT BY 50;
+
+ALTER SEQUENCE expense_category_id_seq INCREMENT BY 50;
+ALTER SEQUENCE expense_record_id_seq INCREMENT BY 50;
+ALTER SEQUENCE income_category_id_seq INCREMENT BY 50;
+ALTER SEQUENCE income_record_id_seq INCREMENT BY 50;
+ALTER SEQUENCE budget_id_seq INCREMENT BY 50;
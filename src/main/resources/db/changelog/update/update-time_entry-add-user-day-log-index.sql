@@ -0,0 +1,3 @@
+-- Выборка записей пользователя за диапазон дат соединяет day_log по дате с time_entry по (user_id, day_log_id)
+CREATE INDEX IF NOT EXISTS idx_time_entry_user_day_log
+    ON time_entry (user_id, day_log_id);
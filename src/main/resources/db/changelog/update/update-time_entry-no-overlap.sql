@@ -0,0 +1,78 @@
+-- Начало и конец записи в минутах от начала дня хранятся вычисляемыми колонками,
+-- а пересечение интервалов одного дня запрещает ограничение-исключение по GiST-индексу.
+-- Ограничение откладываемое: пакетное сохранение переносит интервалы внутри транзакции
+-- и проверяет их после сброса всех изменений.
+-- Добавление STORED-колонок переписывает таблицу time_entry под исключительной блокировкой.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE time_entry
+    ADD COLUMN start_minutes INTEGER GENERATED ALWAYS AS (hour * 60 + minute) STORED,
+    ADD COLUMN end_minutes INTEGER GENERATED ALWAYS AS (end_hour * 60 + end_minute) STORED;
+
+-- Прежняя проверка пересечений в приложении не защищала от гонок, поэтому пересекающиеся
+-- записи уже могут существовать. Внутри дня записи просматриваются по (начало, id):
+-- запись, начинающаяся раньше конца предыдущих, обрезается до этого конца,
+-- а полностью покрытая ими удаляется.
+CREATE TEMPORARY TABLE time_entry_overlap ON COMMIT DROP AS
+SELECT o.id, o.day_log_id, o.start_minutes, o.end_minutes, o.covered_until
+FROM (
+    SELECT te.id,
+           te.day_log_id,
+           te.start_minutes,
+           te.end_minutes,
+           MAX(te.end_minutes) OVER (
+               PARTITION BY te.day_log_id
+               ORDER BY te.start_minutes, te.id
+               ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING
+           ) AS covered_until
+    FROM time_entry te
+    WHERE te.day_log_id IS NOT NULL
+) o
+WHERE o.start_minutes < o.covered_until;
+
+DO $$
+DECLARE
+    overlap RECORD;
+BEGIN
+    FOR overlap IN SELECT * FROM time_entry_overlap ORDER BY day_log_id, start_minutes, id LOOP
+        RAISE WARNING 'time_entry % (day_log %, % - % мин) пересекается с предыдущими записями до % мин: %',
+            overlap.id, overlap.day_log_id, overlap.start_minutes, overlap.end_minutes, overlap.covered_until,
+            CASE WHEN overlap.end_minutes <= overlap.covered_until THEN 'удалена' ELSE 'обрезана' END;
+    END LOOP;
+END $$;
+
+DELETE FROM time_entry te
+USING time_entry_overlap o
+WHERE te.id = o.id
+  AND o.end_minutes <= o.covered_until;
+
+UPDATE time_entry te
+SET hour = o.covered_until / 60,
+    minute = o.covered_until % 60
+FROM time_entry_overlap o
+WHERE te.id = o.id
+  AND o.end_minutes > o.covered_until;
+
+-- Дневные итоги затронутых дней пересчитываются по исправленным записям
+DELETE FROM time_daily_rollup r
+USING day_log dl
+WHERE dl.id IN (SELECT day_log_id FROM time_entry_overlap)
+  AND r.user_id = dl.user_id
+  AND r.day = dl.date;
+
+INSERT INTO time_daily_rollup (user_id, day, status_id, worked, minutes, entry_count)
+SELECT te.user_id,
+       dl.date,
+       te.status_id,
+       COALESCE(te.worked, FALSE),
+       SUM(te.end_minutes - te.start_minutes),
+       COUNT(*)
+FROM time_entry te
+JOIN day_log dl ON dl.id = te.day_log_id
+WHERE dl.id IN (SELECT day_log_id FROM time_entry_overlap)
+GROUP BY te.user_id, dl.date, te.status_id, COALESCE(te.worked, FALSE);
+
+ALTER TABLE time_entry
+    ADD CONSTRAINT ex_time_entry_no_overlap
+        EXCLUDE USING gist (day_log_id WITH =, int4range(start_minutes, end_minutes) WITH &&)
+        DEFERRABLE INITIALLY IMMEDIATE;
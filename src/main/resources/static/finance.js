@@ -20,6 +20,7 @@
                 endpoint: '/api/expenses',
                 bulkEndpoint: '/api/expenses/bulk',
                 bulkDeleteEndpoint: '/api/expenses/bulk-delete',
+                bulkCategoryEndpoint: '/api/expenses/bulk-category',
                 dateField: 'expenseDate',
                 manageForm: 'expenseManageFilterForm',
                 manageFrom: 'expenseManageFrom',
@@ -60,6 +61,7 @@
                 endpoint: '/api/incomes',
                 bulkEndpoint: '/api/incomes/bulk',
                 bulkDeleteEndpoint: '/api/incomes/bulk-delete',
+                bulkCategoryEndpoint: '/api/incomes/bulk-category',
                 dateField: 'incomeDate',
                 manageForm: 'incomeManageFilterForm',
                 manageFrom: 'incomeManageFrom',
@@ -1011,11 +1013,11 @@
             state.bulkModal?.hide();
             return;
         }
-        const payload = {
-            records: ids.map(id => ({ id, categoryId }))
-        };
         try {
-            const resp = await apiFetch(config.bulkEndpoint, { method: 'PUT', body: JSON.stringify(payload) });
+            const resp = await apiFetch(config.bulkCategoryEndpoint, {
+                method: 'PUT',
+                body: JSON.stringify({ ids, categoryId })
+            });
             if (!resp.ok) {
                 throw new Error(await resp.text());
             }
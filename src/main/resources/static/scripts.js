@@ -230,12 +230,14 @@ function normalizeStatusOrderList(statuses) {
 
 async function saveCurrentOrder(showNotification = true) {
     reindexLocalStatuses();
-    for (const status of statusOptions) {
-        const payload = { name: status.name, order: status.order };
-        await apiFetch(`/api/statuses/updateStatus/${status.id}`, {
-            method: 'PUT',
-            body: JSON.stringify(payload)
-        });
+    const resp = await apiFetch('/api/statuses/order', {
+        method: 'PUT',
+        body: JSON.stringify({ ids: statusOptions.map(status => status.id) })
+    });
+    if (!resp.ok) {
+        showMessage('Не удалось сохранить порядок статусов', 'danger');
+        await fetchStatuses();
+        return;
     }
     if (showNotification) {
         showMessage('Порядок статусов сохранён', 'success');
@@ -0,0 +1,92 @@
+package com.traker.traker.config;
+
+import com.traker.traker.entity.Role;
+import com.traker.traker.entity.User;
+import com.traker.traker.security.UserEncryptionService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtRequestFilterTest {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("test-secret-key-with-at-least-256-bits!!".getBytes());
+
+    private JwtUtil jwtUtil;
+    private UserDetailsService userDetailsService;
+    private JwtRequestFilter filter;
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil real = new JwtUtil(SECRET);
+        ReflectionTestUtils.setField(real, "accessTokenExpiration", 60_000L);
+        user = User.builder()
+                .id(7L)
+                .username("alice")
+                .roles(Set.of(Role.builder().name("USER").build()))
+                .build();
+        token = real.createAccessToken(user).getToken();
+
+        jwtUtil = spy(real);
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(user);
+        filter = new JwtRequestFilter(userDetailsService, jwtUtil, mock(UserEncryptionService.class));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verifiesSignatureOncePerRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("accessToken", token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("alice");
+        // Шпион перехватывает и внутренние вызовы JwtUtil: любой повторный разбор токена был бы виден здесь
+        verify(jwtUtil, times(1)).parseOnce(token);
+        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).getUsername(anyString());
+    }
+
+    @Test
+    void rejectsTokenWithInvalidSignature() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char tampered = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        request.setCookies(new Cookie("accessToken",
+                token.substring(0, signatureStart) + tampered + token.substring(signatureStart + 1)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+}
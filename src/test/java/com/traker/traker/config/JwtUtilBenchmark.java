@@ -0,0 +1,80 @@
+package com.traker.traker.config;
+
+import com.traker.traker.entity.Role;
+import com.traker.traker.entity.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость проверки access-токена на один запрос: прежний путь фильтра
+ * ({@code getUsername}, затем {@code validateToken(token, user)}, который разбирает
+ * токен ещё дважды) против одного {@code parseOnce} с проверкой уже разобранных claims.
+ * Число проверок подписи на запрос закреплено в {@code JwtRequestFilterTest}.
+ * Запуск: {@code main} из IDE или {@code java -cp <test classpath> org.openjdk.jmh.Main JwtUtilBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString("benchmark-secret-key-with-256-bits-of-data".getBytes()));
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 3_600_000L);
+        user = User.builder()
+                .id(1L)
+                .username("benchmark")
+                .roles(Set.of(Role.builder().name("USER").build()))
+                .build();
+        token = jwtUtil.createAccessToken(user).getToken();
+    }
+
+    /**
+     * Три проверки подписи: имя пользователя, затем validateToken с повторным разбором токена.
+     */
+    @Benchmark
+    public boolean threeVerificationsPerRequest() {
+        String username = jwtUtil.getUsername(token);
+        return username != null && jwtUtil.validateToken(token, user);
+    }
+
+    /**
+     * Одна проверка подписи: claims разбираются один раз и переиспользуются.
+     */
+    @Benchmark
+    public boolean singleVerificationPerRequest() {
+        Claims claims = jwtUtil.parseOnce(token);
+        return claims.getSubject() != null && jwtUtil.validateToken(claims, user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.traker.traker.repository;
+
+import com.traker.traker.repository.FinanceRecordRowRepository.RecordTable;
+import com.traker.traker.repository.projection.EncryptedFinanceRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class FinanceRecordRowRepositoryTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private FinanceRecordRowRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        JdbcTemplate plain = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plain);
+        when(plain.getDataSource()).thenReturn(mock(DataSource.class));
+        repository = new FinanceRecordRowRepository(jdbcTemplate, 500);
+    }
+
+    @Test
+    void insertsThousandRowsInTwoRoundTrips() {
+        // Последовательность отдаёт нижние границы блоков: 1, 51, 101, ...
+        List<Long> lows = LongStream.range(0, 20).map(i -> 1 + i * FinanceRecordRowRepository.ID_BLOCK_SIZE)
+                .boxed().toList();
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class))).thenReturn(lows);
+
+        repository.insertAll(RecordTable.EXPENSE, 7L, rows(1000));
+
+        ArgumentCaptor<MapSqlParameterSource> reserve = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), reserve.capture(), eq(Long.class));
+        assertThat(reserve.getValue().getValue("blocks")).isEqualTo(20);
+
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertThat(Arrays.stream(batch.getValue()).map(row -> row.getValue("id")))
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 1000).boxed().toList());
+
+        verify(jdbcTemplate).getJdbcTemplate();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void partialBlockTakesOnlyNeededIds() {
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(101L, 151L));
+
+        List<Long> ids = repository.reserveIds(RecordTable.INCOME, 60);
+
+        assertThat(ids).hasSize(60).startsWith(101L, 102L).endsWith(159L, 160L).doesNotHaveDuplicates();
+    }
+
+    private static List<EncryptedFinanceRow> rows(int count) {
+        LocalDate period = LocalDate.of(2024, 3, 1);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EncryptedFinanceRow(null, 3L, null, new byte[]{1}, null, new byte[]{2},
+                        period, period.plusDays(i % 28)))
+                .toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.traker.traker.security.crypto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DataEncryptionServiceTest {
+
+    private DataEncryptionService service;
+    private byte[] key;
+
+    @BeforeEach
+    void setUp() {
+        service = new DataEncryptionService();
+        service.validateSecurityProvider();
+        key = service.generateKey();
+    }
+
+    @Test
+    void binaryFormatRoundTrips() {
+        byte[] plain = "Продукты".getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = service.encryptToBinary(key, plain);
+
+        assertThat(stored[0]).isEqualTo(DataEncryptionService.BINARY_FORMAT_V1);
+        assertThat(service.decryptFromBinary(key, stored)).isEqualTo(plain);
+    }
+
+    @Test
+    void legacyBase64TextIsStillReadable() {
+        String legacy = service.encrypt(key, "старое значение");
+
+        byte[] stored = legacy.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(new String(service.decryptFromBinary(key, stored), StandardCharsets.UTF_8))
+                .isEqualTo("старое значение");
+        assertThat(service.decrypt(key, legacy)).isEqualTo("старое значение");
+    }
+
+    @Test
+    void emptyPayloadRoundTrips() {
+        byte[] stored = service.encryptToBinary(key, new byte[0]);
+
+        assertThat(service.decryptFromBinary(key, stored)).isEmpty();
+    }
+
+    @Test
+    void encryptionUsesFreshIvEveryTime() {
+        byte[] plain = "1500.00".getBytes(StandardCharsets.US_ASCII);
+
+        assertThat(service.encryptToBinary(key, plain)).isNotEqualTo(service.encryptToBinary(key, plain));
+    }
+
+    @Test
+    void tamperedCiphertextFailsAndCipherStaysUsable() {
+        byte[] plain = "описание".getBytes(StandardCharsets.UTF_8);
+        byte[] stored = service.encryptToBinary(key, plain);
+        byte[] tampered = stored.clone();
+        tampered[tampered.length - 1] ^= 0x01;
+
+        assertThatThrownBy(() -> service.decryptFromBinary(key, tampered))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Ошибка проверки GCM-тега не должна оставлять переиспользуемый Cipher потока в сломанном состоянии
+        assertThat(service.decryptFromBinary(key, stored)).isEqualTo(plain);
+        byte[] next = service.encryptToBinary(key, plain);
+        assertThat(service.decryptFromBinary(key, next)).isEqualTo(plain);
+    }
+
+    @Test
+    void wrongKeyFailsWithoutAffectingTheRightOne() {
+        byte[] otherKey = service.generateKey();
+        byte[] plain = "заметка".getBytes(StandardCharsets.UTF_8);
+        byte[] stored = service.encryptToBinary(key, plain);
+
+        assertThatThrownBy(() -> service.decryptFromBinary(otherKey, stored))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(service.decryptFromBinary(key, stored)).isEqualTo(plain);
+    }
+
+    @Test
+    void alternatingKeysOnOneThreadUseTheRightKey() {
+        byte[] otherKey = service.generateKey();
+        byte[] first = service.encryptToBinary(key, "первый".getBytes(StandardCharsets.UTF_8));
+        byte[] second = service.encryptToBinary(otherKey, "второй".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new String(service.decryptFromBinary(key, first), StandardCharsets.UTF_8)).isEqualTo("первый");
+        assertThat(new String(service.decryptFromBinary(otherKey, second), StandardCharsets.UTF_8)).isEqualTo("второй");
+    }
+
+    @Test
+    void decryptsFromOffsetWithoutCopying() {
+        byte[] plain = "сумма".getBytes(StandardCharsets.UTF_8);
+        byte[] combined = Base64.getDecoder().decode(service.encryptBytes(key, plain));
+        byte[] padded = new byte[combined.length + 4];
+        System.arraycopy(combined, 0, padded, 2, combined.length);
+
+        assertThat(service.decryptToBytes(key, padded, 2, combined.length)).isEqualTo(plain);
+    }
+
+    @Test
+    void tooShortPayloadIsRejected() {
+        assertThatThrownBy(() -> service.decryptToBytes(key, new byte[5], 0, 5))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
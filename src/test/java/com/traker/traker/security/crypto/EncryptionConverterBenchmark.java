@@ -0,0 +1,100 @@
+package com.traker.traker.security.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность JPA-конвертеров зашифрованных колонок: одна операция —
+ * шифрование или расшифровка одного поля, как при загрузке строки траты
+ * (название, описание, сумма). Запуск: {@code main} из IDE или
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main EncryptionConverterBenchmark}
+ * после {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionConverterBenchmark {
+
+    private EncryptedStringConverter stringConverter;
+    private EncryptedBigDecimalConverter amountConverter;
+    private String title;
+    private BigDecimal amount;
+    private byte[] storedTitle;
+    private byte[] storedAmount;
+    private byte[] legacyTitle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataEncryptionService service = new DataEncryptionService();
+        service.validateSecurityProvider();
+        EncryptedStringConverter.registerEncryptionService(service);
+        EncryptedBigDecimalConverter.registerEncryptionService(service);
+        // Ключ хранится в ThreadLocal: состояние Scope.Thread настраивается в потоке бенчмарка
+        EncryptionContextHolder.setKey(service.generateKey());
+
+        stringConverter = new EncryptedStringConverter();
+        amountConverter = new EncryptedBigDecimalConverter();
+        title = "Продукты в супермаркете у дома";
+        amount = new BigDecimal("1234.56");
+        storedTitle = stringConverter.convertToDatabaseColumn(title);
+        storedAmount = amountConverter.convertToDatabaseColumn(amount);
+        legacyTitle = service.encrypt(EncryptionContextHolder.requireKey(), title)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EncryptionContextHolder.clear();
+    }
+
+    @Benchmark
+    public byte[] encryptString() {
+        return stringConverter.convertToDatabaseColumn(title);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return stringConverter.convertToEntityAttribute(storedTitle);
+    }
+
+    @Benchmark
+    public String decryptLegacyBase64String() {
+        return stringConverter.convertToEntityAttribute(legacyTitle);
+    }
+
+    @Benchmark
+    public byte[] encryptAmount() {
+        return amountConverter.convertToDatabaseColumn(amount);
+    }
+
+    @Benchmark
+    public BigDecimal decryptAmount() {
+        return amountConverter.convertToEntityAttribute(storedAmount);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EncryptionConverterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+-- Проверка планов выборки трат по фильтру (FinanceRecordRowRepository.selectByFilter).
+-- Запускается psql на базе с применёнными миграциями:
+--   psql -v ON_ERROR_STOP=1 -d traker -f src/test/resources/db/explain/finance-record-filters.sql
+-- Тестовые данные создаются в транзакции и откатываются в конце. Для каждой формы фильтра
+-- план должен читать индекс idx_expense_record_user_period_date_id и не должен содержать
+-- Seq Scan по expense_record; иначе скрипт завершается ошибкой. Доходы устроены так же
+-- (idx_income_record_user_period_date_id по income_date).
+\set ON_ERROR_STOP on
+
+BEGIN;
+
+INSERT INTO users (username, password)
+SELECT 'explain-check-' || g, '' FROM generate_series(1, 100) g;
+
+INSERT INTO expense_category (name, user_id)
+SELECT 'category-' || c, u.id
+FROM users u
+CROSS JOIN generate_series(1, 10) c
+WHERE u.username LIKE 'explain-check-%';
+
+-- 2 000 записей на пользователя за четыре года, каждая десятая без даты
+INSERT INTO expense_record (user_id, category_id, title, amount, period_start, expense_date)
+SELECT s.user_id, s.category_id, '\x01'::bytea, '\x01'::bytea,
+       date_trunc('month', s.day)::date,
+       CASE WHEN s.n % 10 = 0 THEN NULL ELSE s.day END
+FROM (
+    SELECT c.user_id, c.id AS category_id, n, DATE '2021-01-01' + ((n * 7 + c.id) % 1460)::int AS day
+    FROM expense_category c
+    JOIN users u ON u.id = c.user_id AND u.username LIKE 'explain-check-%'
+    CROSS JOIN generate_series(1, 200) n
+) s;
+
+ANALYZE users;
+ANALYZE expense_category;
+ANALYZE expense_record;
+
+SELECT id AS user_id FROM users WHERE username = 'explain-check-1' \gset
+SELECT '{' || string_agg(id::text, ',') || '}' AS category_ids
+FROM (SELECT id FROM expense_category WHERE user_id = :user_id ORDER BY id LIMIT 3) c \gset
+
+CREATE FUNCTION pg_temp.assert_uses_record_index(shape text, query text) RETURNS void AS $$
+DECLARE
+    line text;
+    plan text := '';
+BEGIN
+    FOR line IN EXECUTE 'EXPLAIN (COSTS OFF) ' || query LOOP
+        plan := plan || line || E'\n';
+    END LOOP;
+    RAISE NOTICE E'%:\n%', shape, plan;
+    IF plan NOT LIKE '%idx_expense_record_user_period_date_id%' OR plan LIKE '%Seq Scan on expense_record%' THEN
+        RAISE EXCEPTION 'Фильтр "%" не использует индекс idx_expense_record_user_period_date_id', shape;
+    END IF;
+END
+$$ LANGUAGE plpgsql;
+
+-- Тексты запросов повторяют SQL, который строит selectByFilter для каждой формы фильтра
+\set select 'SELECT r.id, r.category_id, c.name AS category_name, r.title, r.description, r.amount, r.period_start, r.expense_date AS record_date FROM expense_record r JOIN expense_category c ON c.id = r.category_id WHERE r.user_id = '
+\set order ' ORDER BY r.period_start ASC, r.expense_date ASC NULLS LAST, r.id ASC'
+
+SELECT pg_temp.assert_uses_record_index('месяц',
+    :'select' || :user_id
+    || ' AND r.period_start >= DATE ''2023-03-01'' AND r.period_start <= DATE ''2023-03-01''' || :'order');
+
+SELECT pg_temp.assert_uses_record_index('диапазон дат',
+    :'select' || :user_id
+    || ' AND r.period_start >= DATE ''2023-03-01'' AND r.period_start <= DATE ''2023-05-01'''
+    || ' AND (r.expense_date IS NULL OR r.expense_date >= DATE ''2023-03-10'')'
+    || ' AND (r.expense_date IS NULL OR r.expense_date <= DATE ''2023-05-20'')' || :'order');
+
+SELECT pg_temp.assert_uses_record_index('месяц и категории',
+    :'select' || :user_id
+    || ' AND r.period_start >= DATE ''2023-03-01'' AND r.period_start <= DATE ''2023-03-01'''
+    || ' AND r.category_id = ANY(''' || :'category_ids' || '''::bigint[])' || :'order');
+
+SELECT pg_temp.assert_uses_record_index('категории без периода',
+    :'select' || :user_id
+    || ' AND r.category_id = ANY(''' || :'category_ids' || '''::bigint[])' || :'order');
+
+SELECT pg_temp.assert_uses_record_index('keyset-страница',
+    :'select' || :user_id
+    || ' AND r.period_start >= DATE ''2022-01-01'''
+    || ' AND (r.period_start > DATE ''2022-06-01'' OR (r.period_start = DATE ''2022-06-01'' AND '
+    || '(r.expense_date > DATE ''2022-06-15'' OR r.expense_date IS NULL OR (r.expense_date = DATE ''2022-06-15'' AND r.id > 0))))'
+    || :'order' || ' LIMIT 51');
+
+ROLLBACK;